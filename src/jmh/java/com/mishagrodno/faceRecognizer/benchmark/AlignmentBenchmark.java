@@ -0,0 +1,69 @@
+package com.mishagrodno.faceRecognizer.benchmark;
+
+import com.mishagrodno.faceRecognizer.application.FaceAligner;
+import com.mishagrodno.faceRecognizer.application.FaceAligner.Transform;
+import com.mishagrodno.faceRecognizer.application.MatPool;
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacpp.opencv_core.Rect;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the face alignment onto the fixed-size canvas, against rotating the face area into its bounding box.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AlignmentBenchmark {
+
+    private AnnotationConfigApplicationContext context;
+
+    private FaceAligner aligner;
+
+    private MatPool pool;
+
+    private Mat frame;
+
+    private Rect eye1;
+
+    private Rect eye2;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkSupport.context(context -> context.register(MatPool.class, FaceAligner.class));
+        aligner = context.getBean(FaceAligner.class);
+        pool = context.getBean(MatPool.class);
+        frame = BenchmarkSupport.noise((int) (BenchmarkSupport.FRAME_WIDTH / 1.2),
+                (int) (BenchmarkSupport.FRAME_HEIGHT / 1.2));
+        eye1 = new Rect(400, 300, 40, 40);
+        eye2 = new Rect(460, 310, 42, 42);
+    }
+
+    @TearDown
+    public void tearDown() {
+        frame.release();
+        context.close();
+    }
+
+    @Benchmark
+    public Mat canvas() {
+        final Transform transform = aligner.align(eye1, eye2);
+        final Mat canvas = aligner.canvas(frame, transform, pool);
+        pool.release(canvas);
+        return canvas;
+    }
+
+    @Benchmark
+    public Mat rotate() {
+        final Rect faceArea = FaceGeometry.faceArea(frame, eye1, eye2);
+        final Mat area = new Mat(frame, faceArea);
+        final Mat rotated = FaceGeometry.rotate(area, Math.toDegrees(FaceGeometry.faceAngle(eye1, eye2)), pool);
+        pool.release(rotated);
+        area.release();
+        return rotated;
+    }
+}
@@ -0,0 +1,85 @@
+package com.mishagrodno.faceRecognizer.benchmark;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacpp.opencv_core.Scalar;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.io.support.ResourcePropertySource;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import static org.bytedeco.javacpp.opencv_core.*;
+import static org.bytedeco.javacpp.opencv_imgcodecs.IMREAD_COLOR;
+import static org.bytedeco.javacpp.opencv_imgcodecs.imread;
+
+/**
+ * The class with methods shared by benchmarks.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+class BenchmarkSupport {
+
+    /**
+     * Frame width of the camera.
+     */
+    static final int FRAME_WIDTH = 1280;
+
+    /**
+     * Frame height of the camera.
+     */
+    static final int FRAME_HEIGHT = 720;
+
+    /**
+     * Creates context with application properties and given beans, without database and metrics export.
+     *
+     * @param registrar registers beans.
+     * @return refreshed context.
+     * @throws IOException if properties can't be read.
+     */
+    static AnnotationConfigApplicationContext context(final Consumer<AnnotationConfigApplicationContext> registrar)
+            throws IOException {
+        final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources()
+                .addFirst(new ResourcePropertySource("classpath:application.properties"));
+        context.register(PropertySourcesPlaceholderConfigurer.class);
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        registrar.accept(context);
+        context.refresh();
+        return context;
+    }
+
+    /**
+     * Loads color frame from the file, or creates a synthetic one if no file is given.
+     *
+     * @param path image path, may be empty.
+     * @return color frame.
+     */
+    static Mat frame(final String path) {
+        if (path != null && !path.isEmpty()) {
+            final Mat image = imread(path, IMREAD_COLOR);
+            if (!image.empty()) {
+                return image;
+            }
+        }
+
+        final Mat image = new Mat(FRAME_HEIGHT, FRAME_WIDTH, CV_8UC3);
+        randu(image, new Mat(1, 1, CV_64F, new Scalar(0.0)), new Mat(1, 1, CV_64F, new Scalar(255.0)));
+        return image;
+    }
+
+    /**
+     * Creates random grayscale image.
+     *
+     * @param width  width.
+     * @param height height.
+     * @return image.
+     */
+    static Mat noise(final int width, final int height) {
+        final Mat image = new Mat(height, width, CV_8UC1);
+        randu(image, new Mat(1, 1, CV_64F, new Scalar(0.0)), new Mat(1, 1, CV_64F, new Scalar(255.0)));
+        return image;
+    }
+}
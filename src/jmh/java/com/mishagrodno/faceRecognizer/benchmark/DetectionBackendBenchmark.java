@@ -0,0 +1,119 @@
+package com.mishagrodno.faceRecognizer.benchmark;
+
+import com.mishagrodno.faceRecognizer.application.Detector;
+import com.mishagrodno.faceRecognizer.application.FaceAligner;
+import com.mishagrodno.faceRecognizer.application.MatPool;
+import com.mishagrodno.faceRecognizer.application.ScanWindow;
+import com.mishagrodno.faceRecognizer.application.detection.CascadeFaceDetector;
+import com.mishagrodno.faceRecognizer.application.detection.DnnFaceDetector;
+import com.mishagrodno.faceRecognizer.application.detection.FaceDetection;
+import com.mishagrodno.faceRecognizer.application.detection.FaceDetector;
+import com.mishagrodno.faceRecognizer.application.pipeline.FrameContext;
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacpp.opencv_core.Size;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.bytedeco.javacpp.opencv_core.CV_8UC1;
+import static org.bytedeco.javacpp.opencv_core.subtract;
+import static org.bytedeco.javacpp.opencv_imgproc.*;
+
+/**
+ * Comparison of the detection backends on a whole frame.
+ * The dnn backend needs the Caffe model, see {@code detection.dnn.model}.
+ * Pass a real camera frame with {@code -p image=path}, a synthetic frame is used otherwise.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DetectionBackendBenchmark {
+
+    private static final double SCALE = 1.2;
+
+    @Param({"cascade", "dnn"})
+    public String backend;
+
+    @Param({""})
+    public String image;
+
+    private AnnotationConfigApplicationContext context;
+
+    private FaceDetector detector;
+
+    private MatPool pool;
+
+    private ScanWindow eyeWindow;
+
+    private Mat color;
+
+    private Mat gray;
+
+    private Mat prepared;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkSupport.context(context -> {
+            context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark",
+                    Collections.singletonMap("detection.backend", backend)));
+            context.register(MatPool.class, Detector.class, FaceAligner.class, CascadeFaceDetector.class,
+                    DnnFaceDetector.class);
+        });
+        detector = context.getBean(FaceDetector.class);
+        pool = context.getBean(MatPool.class);
+        eyeWindow = context.getBean(Detector.class).eyeWindow();
+
+        color = BenchmarkSupport.frame(image);
+
+        final Mat resized = new Mat();
+        resize(color, resized, new Size((int) (color.cols() / SCALE), (int) (color.rows() / SCALE)));
+        gray = new Mat();
+        cvtColor(resized, gray, CV_BGR2GRAY);
+        resized.release();
+
+        prepared = new Mat(gray.rows(), gray.cols(), CV_8UC1);
+        Canny(gray, prepared, 50, 200, 3, false);
+        subtract(gray, prepared, prepared);
+    }
+
+    @TearDown
+    public void tearDown() {
+        color.release();
+        gray.release();
+        prepared.release();
+        context.close();
+    }
+
+    @Benchmark
+    public List<FaceDetection> detect() throws Exception {
+        return detect(this);
+    }
+
+    /**
+     * Four sources detected at once, lets the dnn backend batch their frames.
+     */
+    @Benchmark
+    @Threads(4)
+    public List<FaceDetection> detectFourSources() throws Exception {
+        return detect(this);
+    }
+
+    private static List<FaceDetection> detect(final DetectionBackendBenchmark state) throws Exception {
+        final FrameContext frame = new FrameContext(state.pool);
+        frame.setImage(state.color);
+        frame.setGray(state.gray);
+        frame.setPrepared(state.prepared);
+        frame.setEyeWindow(state.eyeWindow);
+        try {
+            return state.detector.detect(frame, SCALE);
+        } finally {
+            frame.release();
+        }
+    }
+}
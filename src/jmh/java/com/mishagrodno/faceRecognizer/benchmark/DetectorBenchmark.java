@@ -0,0 +1,75 @@
+package com.mishagrodno.faceRecognizer.benchmark;
+
+import com.mishagrodno.faceRecognizer.application.Detector;
+import com.mishagrodno.faceRecognizer.application.ScanWindow;
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacpp.opencv_core.Rect;
+import org.bytedeco.javacpp.opencv_core.Size;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.bytedeco.javacpp.opencv_imgproc.CV_BGR2GRAY;
+import static org.bytedeco.javacpp.opencv_imgproc.cvtColor;
+import static org.bytedeco.javacpp.opencv_imgproc.resize;
+
+/**
+ * Benchmarks of the cascade detection.
+ * Pass a real camera frame with {@code -p image=path}, a synthetic frame is used otherwise.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DetectorBenchmark {
+
+    @Param({""})
+    public String image;
+
+    private AnnotationConfigApplicationContext context;
+
+    private Detector detector;
+
+    private ScanWindow eyeWindow;
+
+    private Mat frame;
+
+    private Mat faceArea;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkSupport.context(context -> context.register(Detector.class));
+        detector = context.getBean(Detector.class);
+        eyeWindow = detector.eyeWindow();
+
+        final Mat color = BenchmarkSupport.frame(image);
+        frame = new Mat();
+        resize(color, frame, new Size((int) (color.cols() / 1.2), (int) (color.rows() / 1.2)));
+        cvtColor(frame, frame, CV_BGR2GRAY);
+        color.release();
+
+        final int width = Math.min(200, frame.cols());
+        final int height = Math.min(250, frame.rows());
+        faceArea = new Mat(frame, new Rect((frame.cols() - width) / 2, (frame.rows() - height) / 2, width, height)).clone();
+    }
+
+    @TearDown
+    public void tearDown() {
+        frame.release();
+        faceArea.release();
+        context.close();
+    }
+
+    @Benchmark
+    public List<Rect> detectEyes() {
+        return detector.detectEyes(frame, eyeWindow);
+    }
+
+    @Benchmark
+    public List<Rect> detectFaces() {
+        return detector.detectFaces(faceArea);
+    }
+}
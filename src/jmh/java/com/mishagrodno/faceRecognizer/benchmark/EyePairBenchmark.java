@@ -0,0 +1,68 @@
+package com.mishagrodno.faceRecognizer.benchmark;
+
+import com.mishagrodno.faceRecognizer.application.detection.EyePairCandidates;
+import com.mishagrodno.faceRecognizer.application.detection.EyePairCandidates.Candidate;
+import org.bytedeco.javacpp.opencv_core.Rect;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of pairing and ranking of detected eyes, against checking every pair of them.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EyePairBenchmark {
+
+    @Param({"4", "20", "100"})
+    public int eyes;
+
+    private EyePairCandidates candidates;
+
+    private List<Rect> detected;
+
+    @Setup
+    public void setUp() {
+        candidates = new EyePairCandidates(0.5, 45);
+
+        // eyes of a crowd, scattered over the whole frame.
+        final Random random = new Random(42);
+        detected = new ArrayList<>(eyes);
+        for (int i = 0; i < eyes; i++) {
+            final int size = 20 + random.nextInt(30);
+            detected.add(new Rect(random.nextInt(BenchmarkSupport.FRAME_WIDTH - size),
+                    random.nextInt(BenchmarkSupport.FRAME_HEIGHT - size), size, size));
+        }
+    }
+
+    @Benchmark
+    public List<Candidate> rank() {
+        return candidates.rank(detected);
+    }
+
+    /**
+     * Every pair checked by the distance only, as eye pairs were chosen before ranking.
+     */
+    @Benchmark
+    public int allPairs() {
+        int pairs = 0;
+        for (int i = 0; i < detected.size() - 1; i++) {
+            for (int j = i + 1; j < detected.size(); j++) {
+                final Rect eye1 = detected.get(i);
+                final Rect eye2 = detected.get(j);
+                final double dx = eye1.x() - eye2.x();
+                final double dy = eye1.y() - eye2.y();
+                if (Math.sqrt(dx * dx + dy * dy) <= Math.max(eye1.width(), eye2.width()) * 2) {
+                    pairs++;
+                }
+            }
+        }
+        return pairs;
+    }
+}
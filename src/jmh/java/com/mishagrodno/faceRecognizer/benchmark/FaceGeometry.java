@@ -0,0 +1,178 @@
+package com.mishagrodno.faceRecognizer.benchmark;
+
+import com.mishagrodno.faceRecognizer.application.MatPool;
+import org.bytedeco.javacpp.indexer.DoubleRawIndexer;
+import org.bytedeco.javacpp.opencv_core.*;
+
+import static java.lang.Math.cos;
+import static java.lang.Math.sin;
+import static org.bytedeco.javacpp.opencv_imgproc.getRotationMatrix2D;
+import static org.bytedeco.javacpp.opencv_imgproc.warpAffine;
+
+/**
+ * The class with face geometry methods based on a pair of eyes.
+ * Faces were aligned by rotating the face area into its bounding box before the
+ * {@link com.mishagrodno.faceRecognizer.application.FaceAligner}, it is kept as the baseline of the benchmarks.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class FaceGeometry {
+
+    /**
+     * Calculates distance between centers of two rectangles.
+     *
+     * @param rect1 first rectangle.
+     * @param rect2 second rectangle.
+     * @return distance.
+     */
+    public static double distance(final Rect rect1, final Rect rect2) {
+        final int rect1CenterX = rect1.x() + rect1.width() / 2;
+        final int rect1CenterY = rect1.y() + rect1.height() / 2;
+
+        final int rect2CenterX = rect2.x() + rect2.width() / 2;
+        final int rect2CenterY = rect2.y() + rect2.height() / 2;
+
+        return Math.sqrt(Math.pow(rect1CenterX - rect2CenterX, 2) + Math.pow(rect1CenterY - rect2CenterY, 2));
+    }
+
+    /**
+     * Calculates area of the image where the face with given eyes should be.
+     *
+     * @param image image.
+     * @param eye1  first eye.
+     * @param eye2  second eye.
+     * @return face area.
+     */
+    public static Rect faceArea(final Mat image, final Rect eye1, final Rect eye2) {
+        Rect left;
+        if (eye1.x() < eye2.x()) {
+            left = eye1;
+        } else {
+            left = eye2;
+        }
+
+        final int maxWidth = Math.max(eye1.width(), eye2.width());
+        final int maxHeight = Math.max(eye1.height(), eye2.height());
+
+        final int faceX = Math.max(0, left.x() - maxWidth);
+        final int faceY = Math.max(0, left.y() - maxHeight);
+
+        final int faceWidth = Math.max(0, Math.min(4 * maxWidth, image.cols() - faceX));
+        final int faceHeight = Math.max(0, Math.min(5 * maxHeight, image.rows() - faceY));
+
+        return new Rect(faceX, faceY, faceWidth, faceHeight);
+    }
+
+    /**
+     * Calculates face angle by its eyes.
+     *
+     * @param eye1 first eye.
+     * @param eye2 second eye.
+     * @return angle in radians.
+     */
+    public static double faceAngle(final Rect eye1, final Rect eye2) {
+        Rect left, right;
+        if (eye1.x() < eye2.x()) {
+            left = eye1;
+            right = eye2;
+        } else {
+            left = eye2;
+            right = eye1;
+        }
+
+        final int rightCenterX = right.x() + right.width() / 2;
+        final int rightCenterY = right.y() + right.height() / 2;
+
+        final int leftCenterX = left.x() + left.width() / 2;
+        final int leftCenterY = left.y() + left.height() / 2;
+
+        return Math.atan((double) (rightCenterY - leftCenterY) / (double) (rightCenterX - leftCenterX));
+    }
+
+    /**
+     * Rotates image into its bounding box taken from the pool.
+     *
+     * @param image image to rotate.
+     * @param angle angle in degrees.
+     * @param pool  pool of images.
+     * @return rotated image, it should be returned to the pool.
+     */
+    public static Mat rotate(final Mat image, final double angle, final MatPool pool) {
+        final Rect2f rotatedRect = new RotatedRect(new Point2f(), new Size2f(image.cols(), image.rows()),
+                (float) angle).boundingRect2f();
+        final Mat dst = pool.acquire((int) rotatedRect.height(), (int) rotatedRect.width(), image.type());
+
+        final Mat rotationMatrix = getRotationMatrix2D(new Point2f(image.cols() / 2.0f, image.rows() / 2.0f),
+                angle, 1);
+        final DoubleRawIndexer indexer = rotationMatrix.createIndexer();
+        indexer.put(0, 2, indexer.get(0, 2) + rotatedRect.width() / 2.0 - image.cols() / 2.0);
+        indexer.put(1, 2, indexer.get(1, 2) + rotatedRect.height() / 2.0 - image.rows() / 2.0);
+
+        warpAffine(image, dst, rotationMatrix, new Size((int) rotatedRect.width(), (int) rotatedRect.height()));
+
+        indexer.release();
+        rotationMatrix.release();
+        return dst;
+    }
+
+    /**
+     * Recalculates face found on the rotated face area to the coordinates of the original image.
+     *
+     * @param face     face on the rotated face area.
+     * @param faceArea face area.
+     * @param angle    rotation angle in radians.
+     * @param scale    scale of the original image relative to the processed one.
+     * @return face on the original image.
+     */
+    public static Rect recalc(final Rect face, final Rect faceArea, double angle, final double scale) {
+        final int x = face.x();
+        final int y = face.y();
+
+        final int faceWidth = faceArea.width();
+        final int faceHeight = faceArea.height();
+
+        final double W = faceWidth * cos(angle) + Math.abs(faceHeight * sin(angle));
+
+        double f;
+
+        int newX = 0, newY = 0;
+
+        if (angle <= 0) {
+            angle = Math.toRadians(90) + angle;
+
+            final double l = Math.sqrt((Math.pow(faceWidth * cos(angle) - y, 2) + (W - x) * (W - x)));
+            final double b = Math.abs(Math.atan((faceWidth * cos(angle) - y) / (W - x)));
+
+            if (y <= faceWidth * cos(angle)) {
+                f = Math.toRadians(90) - angle - b;
+                newX = (int) (faceArea.x() + faceWidth - l * cos(f));
+                newY = (int) (faceArea.y() + l * sin(f));
+            }
+
+            if (y > faceWidth * cos(angle)) {
+                f = angle - b;
+                newX = (int) (faceArea.x() + faceWidth - l * sin(f));
+                newY = (int) (faceArea.y() + l * cos(f));
+            }
+
+        } else {
+
+            final double l = Math.sqrt((Math.pow(faceHeight * cos(angle) - y, 2) + (W - x) * (W - x)));
+            final double b = Math.abs(Math.atan((faceHeight * cos(angle) - y) / (W - x)));
+
+            if (y <= faceHeight * cos(angle)) {
+                f = Math.toRadians(90) - angle - b;
+                newX = (int) (faceArea.x() + faceWidth - l * sin(f));
+                newY = (int) (faceArea.y() + faceHeight - l * cos(f));
+            }
+
+            if (y > faceHeight * cos(angle)) {
+                f = angle - b;
+                newX = (int) (faceArea.x() + faceWidth - l * cos(f));
+                newY = (int) (faceArea.y() + faceHeight - l * sin(f));
+            }
+        }
+
+        return new Rect((int) (newX * scale), (int) (newY * scale), (int) (face.width() * scale), (int) (face.width() * scale));
+    }
+}
@@ -0,0 +1,65 @@
+package com.mishagrodno.faceRecognizer.benchmark;
+
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacpp.opencv_core.Rect;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the face geometry calculated from a pair of eyes.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FaceGeometryBenchmark {
+
+    private Mat frame;
+
+    private Rect eye1;
+
+    private Rect eye2;
+
+    private Rect face;
+
+    private Rect faceArea;
+
+    private double angle;
+
+    @Setup
+    public void setUp() {
+        frame = BenchmarkSupport.noise((int) (BenchmarkSupport.FRAME_WIDTH / 1.2), (int) (BenchmarkSupport.FRAME_HEIGHT / 1.2));
+        eye1 = new Rect(400, 300, 40, 40);
+        eye2 = new Rect(460, 310, 42, 42);
+        face = new Rect(20, 25, 130, 130);
+        faceArea = FaceGeometry.faceArea(frame, eye1, eye2);
+        angle = FaceGeometry.faceAngle(eye1, eye2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        frame.release();
+    }
+
+    @Benchmark
+    public double distance() {
+        return FaceGeometry.distance(eye1, eye2);
+    }
+
+    @Benchmark
+    public Rect faceArea() {
+        return FaceGeometry.faceArea(frame, eye1, eye2);
+    }
+
+    @Benchmark
+    public double faceAngle() {
+        return FaceGeometry.faceAngle(eye1, eye2);
+    }
+
+    @Benchmark
+    public Rect recalc() {
+        return FaceGeometry.recalc(face, faceArea, angle, 1.2);
+    }
+}
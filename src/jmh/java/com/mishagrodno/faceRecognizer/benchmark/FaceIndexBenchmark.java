@@ -0,0 +1,128 @@
+package com.mishagrodno.faceRecognizer.benchmark;
+
+import com.mishagrodno.faceRecognizer.application.index.ExactIndex;
+import com.mishagrodno.faceRecognizer.application.index.FaceIndex;
+import com.mishagrodno.faceRecognizer.application.index.GraphIndex;
+import com.mishagrodno.faceRecognizer.application.index.Neighbor;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the nearest neighbour search on synthetic histograms.
+ * Histograms are normalized per cell of 256 bins like LBPH ones, the probe is a perturbed gallery entry.
+ * Large galleries need a large heap, 1M LBPH histograms of 16384 dimensions take 64GB, such combinations
+ * fail in setup unless the heap is big enough.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FaceIndexBenchmark {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FaceIndexBenchmark.class);
+
+    private static final int CELL = 256;
+
+    private static final int PROBES = 100;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int entries;
+
+    @Param({"128", "16384"})
+    public int dimensions;
+
+    @Param({"exact", "graph"})
+    public String index;
+
+    private FaceIndex faceIndex;
+
+    private float[][] probes;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        // the graph index is also filled into an exact one to measure its recall.
+        final long required = (long) entries * dimensions * Float.BYTES * ("exact".equals(index) ? 1 : 2);
+        if (required > Runtime.getRuntime().maxMemory() * 0.6) {
+            throw new IllegalStateException(String.format("%d entries of %d dimensions need %d MB, heap is %d MB",
+                    entries, dimensions, required >> 20, Runtime.getRuntime().maxMemory() >> 20));
+        }
+
+        final Random random = new Random(42);
+        faceIndex = create(index);
+        final FaceIndex exact = "exact".equals(index) ? null : new ExactIndex(dimensions);
+
+        probes = new float[PROBES][];
+        final int step = Math.max(1, entries / PROBES);
+        for (int i = 0; i < entries; i++) {
+            final float[] histogram = histogram(random);
+            faceIndex.add(histogram, i);
+            if (exact != null) {
+                exact.add(histogram, i);
+            }
+            if (i % step == 0 && i / step < PROBES) {
+                probes[i / step] = perturb(histogram, random);
+            }
+        }
+
+        if (exact != null) {
+            int hits = 0;
+            for (final float[] probe : probes) {
+                final List<Neighbor> expected = exact.search(probe, 1);
+                final List<Neighbor> found = faceIndex.search(probe, 1);
+                if (!found.isEmpty() && found.get(0).getLabel() == expected.get(0).getLabel()) {
+                    hits++;
+                }
+            }
+            LOGGER.info("Recall@1 of {} index: {}", index, hits / (double) PROBES);
+        }
+    }
+
+    @Benchmark
+    public List<Neighbor> search() {
+        next = (next + 1) % PROBES;
+        return faceIndex.search(probes[next], 1);
+    }
+
+    private FaceIndex create(final String type) {
+        return "graph".equals(type) ? new GraphIndex(dimensions, 16, 100, 64) : new ExactIndex(dimensions);
+    }
+
+    private float[] histogram(final Random random) {
+        final float[] histogram = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            histogram[i] = random.nextFloat();
+        }
+        normalize(histogram);
+        return histogram;
+    }
+
+    private float[] perturb(final float[] histogram, final Random random) {
+        final float[] probe = histogram.clone();
+        for (int i = 0; i < dimensions; i++) {
+            probe[i] *= 0.8f + 0.4f * random.nextFloat();
+        }
+        normalize(probe);
+        return probe;
+    }
+
+    private static void normalize(final float[] histogram) {
+        for (int from = 0; from < histogram.length; from += CELL) {
+            final int to = Math.min(histogram.length, from + CELL);
+            float sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += histogram[i];
+            }
+            for (int i = from; i < to; i++) {
+                histogram[i] /= sum;
+            }
+        }
+    }
+}
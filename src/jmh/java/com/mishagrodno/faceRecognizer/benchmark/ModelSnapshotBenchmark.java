@@ -0,0 +1,68 @@
+package com.mishagrodno.faceRecognizer.benchmark;
+
+import com.mishagrodno.faceRecognizer.application.ModelSnapshots;
+import com.mishagrodno.faceRecognizer.application.Recognizer;
+import com.mishagrodno.faceRecognizer.db.service.FaceService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the recognizer startup from the model snapshot, against training from scratch.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ModelSnapshotBenchmark {
+
+    @Param({"1000", "10000"})
+    public int gallerySize;
+
+    private AnnotationConfigApplicationContext context;
+
+    private Recognizer recognizer;
+
+    private Path snapshot;
+
+    @Setup
+    public void setUp() throws Exception {
+        final FaceService faceService = new SyntheticFaceService(gallerySize, 10);
+        snapshot = Files.createTempFile("recognizer", ".snapshot");
+        Files.delete(snapshot);
+
+        context = BenchmarkSupport.context(context -> {
+            context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark",
+                    Collections.singletonMap("recognizer.snapshot.file", snapshot.toString())));
+            context.registerBean(FaceService.class, () -> faceService);
+            context.register(ModelSnapshots.class, Recognizer.class);
+        });
+
+        // the first start trains from scratch and writes the snapshot.
+        recognizer = context.getBean(Recognizer.class);
+        recognizer.init();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        context.close();
+        Files.deleteIfExists(snapshot);
+    }
+
+    @Benchmark
+    public int restore() {
+        recognizer.init();
+        return recognizer.getModel().size();
+    }
+
+    @Benchmark
+    public int retrain() {
+        return recognizer.retrain().join().size();
+    }
+}
@@ -0,0 +1,100 @@
+package com.mishagrodno.faceRecognizer.benchmark;
+
+import com.mishagrodno.faceRecognizer.application.FramePreprocessor;
+import com.mishagrodno.faceRecognizer.application.MatPool;
+import com.mishagrodno.faceRecognizer.application.pipeline.FrameContext;
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.bytedeco.javacpp.opencv_core.CV_8UC1;
+import static org.bytedeco.javacpp.opencv_core.subtract;
+import static org.bytedeco.javacpp.opencv_imgproc.*;
+
+/**
+ * Benchmark of the frame preprocessing with different chains, against resizing the color frame first.
+ * Pass a real camera frame with {@code -p image=path}, a synthetic frame is used otherwise.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PreprocessBenchmark {
+
+    private static final double SCALE = 1.2;
+
+    @Param({"canny", "", "equalize", "canny,equalize"})
+    public String chain;
+
+    @Param({""})
+    public String image;
+
+    private AnnotationConfigApplicationContext context;
+
+    private FramePreprocessor preprocessor;
+
+    private MatPool pool;
+
+    private Mat color;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkSupport.context(context -> {
+            context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark",
+                    Collections.singletonMap("preprocess.chain", chain)));
+            context.register(MatPool.class, FramePreprocessor.class);
+        });
+        preprocessor = context.getBean(FramePreprocessor.class);
+        pool = context.getBean(MatPool.class);
+        color = BenchmarkSupport.frame(image);
+    }
+
+    @TearDown
+    public void tearDown() {
+        color.release();
+        context.close();
+    }
+
+    @Benchmark
+    public Mat prepare() {
+        final FrameContext frame = new FrameContext(pool);
+        frame.setImage(color);
+        try {
+            preprocessor.prepare(frame, SCALE);
+            return frame.getPrepared();
+        } finally {
+            frame.release();
+        }
+    }
+
+    /**
+     * Color frame resized before the grayscale conversion, with the Canny subtraction.
+     */
+    @Benchmark
+    public Mat colorFirst() {
+        final FrameContext frame = new FrameContext(pool);
+        frame.setImage(color);
+        try {
+            final int width = (int) (color.cols() / SCALE);
+            final int height = (int) (color.rows() / SCALE);
+
+            final Mat resized = frame.acquire(height, width, color.type());
+            resize(color, resized, resized.size());
+
+            final Mat gray = frame.acquire(height, width, CV_8UC1);
+            cvtColor(resized, gray, CV_BGR2GRAY);
+
+            final Mat canny = frame.acquire(height, width, CV_8UC1);
+            Canny(gray, canny, 50, 200, 3, false);
+            subtract(gray, canny, canny);
+            return canny;
+        } finally {
+            frame.release();
+        }
+    }
+}
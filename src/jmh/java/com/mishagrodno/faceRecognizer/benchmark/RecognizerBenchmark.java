@@ -0,0 +1,59 @@
+package com.mishagrodno.faceRecognizer.benchmark;
+
+import com.mishagrodno.faceRecognizer.application.ModelSnapshots;
+import com.mishagrodno.faceRecognizer.application.Recognizer;
+import com.mishagrodno.faceRecognizer.db.service.FaceService;
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the recognition against synthetic galleries.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RecognizerBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int gallerySize;
+
+    private AnnotationConfigApplicationContext context;
+
+    private Recognizer recognizer;
+
+    private Mat probe;
+
+    @Setup
+    public void setUp() throws Exception {
+        final FaceService faceService = new SyntheticFaceService(gallerySize, 10);
+        context = BenchmarkSupport.context(context -> {
+            context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark",
+                    Collections.singletonMap("recognizer.snapshot.file", "")));
+            context.registerBean(FaceService.class, () -> faceService);
+            context.register(ModelSnapshots.class, Recognizer.class);
+        });
+
+        recognizer = context.getBean(Recognizer.class);
+        recognizer.init();
+
+        probe = BenchmarkSupport.noise(SyntheticFaceService.FACE_SIZE, SyntheticFaceService.FACE_SIZE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        probe.release();
+        context.close();
+    }
+
+    @Benchmark
+    public int recognize() {
+        return recognizer.recognize(probe);
+    }
+}
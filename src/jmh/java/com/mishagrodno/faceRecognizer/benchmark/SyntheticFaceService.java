@@ -0,0 +1,148 @@
+package com.mishagrodno.faceRecognizer.benchmark;
+
+import com.mishagrodno.faceRecognizer.application.FaceContent;
+import com.mishagrodno.faceRecognizer.db.entity.ContentEncoding;
+import com.mishagrodno.faceRecognizer.db.entity.FaceEntity;
+import com.mishagrodno.faceRecognizer.db.entity.HumanEntity;
+import com.mishagrodno.faceRecognizer.db.service.FaceService;
+import com.mishagrodno.faceRecognizer.db.service.FaceSample;
+import com.mishagrodno.faceRecognizer.db.service.GalleryVersion;
+import org.bytedeco.javacpp.opencv_core.Mat;
+
+import javax.sql.rowset.serial.SerialBlob;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The in-memory {@link FaceService} with random faces.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+class SyntheticFaceService implements FaceService {
+
+    /**
+     * Size of generated faces.
+     */
+    static final int FACE_SIZE = 100;
+
+    private final List<FaceEntity> faces = new ArrayList<>();
+
+    /**
+     * Creates gallery.
+     *
+     * @param size           count of faces.
+     * @param facesPerHuman count of faces of every human.
+     * @throws SQLException if content can't be created.
+     */
+    SyntheticFaceService(final int size, final int facesPerHuman) throws SQLException {
+        final List<HumanEntity> humans = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (i % facesPerHuman == 0) {
+                final HumanEntity human = new HumanEntity();
+                human.setId((long) humans.size() + 1);
+                human.setName("human-" + human.getId());
+                humans.add(human);
+            }
+
+            final Mat image = BenchmarkSupport.noise(FACE_SIZE, FACE_SIZE);
+            final FaceEntity face = new FaceEntity();
+            face.setId((long) i + 1);
+            face.setContent(new SerialBlob(FaceContent.encode(image, ContentEncoding.RAW)));
+            face.setEncoding(ContentEncoding.RAW);
+            face.setType(image.type());
+            face.setWidth(image.cols());
+            face.setHeight(image.rows());
+            face.setOwner(humans.get(humans.size() - 1));
+            faces.add(face);
+            image.release();
+        }
+    }
+
+    @Override
+    public FaceEntity save(final FaceEntity face) {
+        if (face.getId() == null) {
+            face.setId(faces.isEmpty() ? 1 : faces.get(faces.size() - 1).getId() + 1);
+        }
+        faces.add(face);
+        return face;
+    }
+
+    @Override
+    public Iterable<FaceEntity> saveAll(final Iterable<FaceEntity> faces) {
+        faces.forEach(this::save);
+        return faces;
+    }
+
+    @Override
+    public FaceEntity create(final String name, final Integer type, final Integer height, final Integer width,
+                             final byte[] content, final ContentEncoding encoding, final HumanEntity owner) {
+        try {
+            final FaceEntity face = new FaceEntity();
+            face.setContent(new SerialBlob(content));
+            face.setEncoding(encoding);
+            face.setOwner(owner);
+            face.setType(type);
+            face.setHeight(height);
+            face.setWidth(width);
+            return save(face);
+        } catch (final SQLException e) {
+            throw new IllegalArgumentException("Can't read face content", e);
+        }
+    }
+
+    @Override
+    public FaceEntity get(final Long id) {
+        return faces.stream().filter(face -> face.getId().equals(id)).findFirst().orElse(null);
+    }
+
+    @Override
+    public void delete(final FaceEntity face) {
+        faces.remove(face);
+    }
+
+    @Override
+    public void deleteAll(final Iterable<FaceEntity> faces) {
+        faces.forEach(this::delete);
+    }
+
+    @Override
+    public Iterable<FaceEntity> all() {
+        return faces;
+    }
+
+    @Override
+    public List<FaceEntity> allAfter(final Long id, final int limit) {
+        return faces.stream()
+                .filter(face -> face.getId() > id)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<FaceSample> samplesAfter(final Long id, final int limit) {
+        return allAfter(id, limit).stream()
+                .map(face -> new FaceSample(face.getId(), face.getOwner().getId(), face.getEncoding(), face.getType(),
+                        face.getWidth(), face.getHeight(), face.getContent()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<FaceEntity> allOf(final HumanEntity owner) {
+        return faces.stream()
+                .filter(face -> face.getOwner() == owner)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public GalleryVersion version(final Long id) {
+        GalleryVersion version = GalleryVersion.EMPTY;
+        for (final FaceEntity face : faces) {
+            if (face.getId() <= id) {
+                version = version.plus(face.getId(), face.getOwner().getId());
+            }
+        }
+        return version;
+    }
+}
@@ -0,0 +1,62 @@
+package com.mishagrodno.faceRecognizer.benchmark;
+
+import com.mishagrodno.faceRecognizer.application.Utils;
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacpp.opencv_core.Rect;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the image utility methods.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UtilsBenchmark {
+
+    @Param({""})
+    public String image;
+
+    private Mat frame;
+
+    private Mat faceArea;
+
+    private Rect face1;
+
+    private Rect face2;
+
+    @Setup
+    public void setUp() {
+        frame = BenchmarkSupport.frame(image);
+        faceArea = BenchmarkSupport.noise(160, 200);
+        face1 = new Rect(100, 100, 120, 120);
+        face2 = new Rect(180, 150, 120, 120);
+    }
+
+    @TearDown
+    public void tearDown() {
+        frame.release();
+        faceArea.release();
+    }
+
+    @Benchmark
+    public Mat rotate() {
+        final Mat rotated = Utils.rotate(faceArea, 15);
+        rotated.release();
+        return rotated;
+    }
+
+    @Benchmark
+    public BufferedImage convertToBufferedImage() {
+        return Utils.convertToBufferedImage(frame);
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return Utils.contains(face1, face2);
+    }
+}
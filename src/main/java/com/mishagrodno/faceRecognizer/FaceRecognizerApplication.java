@@ -1,10 +1,15 @@
 package com.mishagrodno.faceRecognizer;
 
 import com.mishagrodno.faceRecognizer.application.MainClass;
+import com.mishagrodno.faceRecognizer.application.batch.BatchProcessor;
+import com.mishagrodno.faceRecognizer.application.stream.StreamManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.builder.SpringApplicationBuilder;
 
+import java.util.Arrays;
+
 /**
  * Spring application starts here.
  *
@@ -15,16 +20,41 @@ public class FaceRecognizerApplication {
 
     private static MainClass mainClass;
 
+    private static BatchProcessor batchProcessor;
+
+    private static StreamManager streamManager;
+
     @Autowired
-    public FaceRecognizerApplication(MainClass mainClass) {
+    public FaceRecognizerApplication(MainClass mainClass, BatchProcessor batchProcessor, StreamManager streamManager) {
         FaceRecognizerApplication.mainClass = mainClass;
+        FaceRecognizerApplication.batchProcessor = batchProcessor;
+        FaceRecognizerApplication.streamManager = streamManager;
     }
 
+    /**
+     * Starts camera window or, when batch inputs are given (--batch.inputs=video.mp4,images/), processes them
+     * headless and exits. When streams are configured (streams.sources), runs them headless instead of the window.
+     * Except for batch runs, metrics are served by the application server (server.port), which listens only on
+     * the local machine.
+     *
+     * @param args application arguments.
+     */
     public static void main(String[] args) {
+        final boolean batch = Arrays.stream(args).anyMatch(arg -> arg.startsWith("--batch.inputs="));
+        final boolean streams = Arrays.stream(args).anyMatch(arg -> arg.startsWith("--streams.sources="));
+
         new SpringApplicationBuilder(FaceRecognizerApplication.class)
-                .headless(false)
+                .headless(batch || streams)
+                .web(batch ? WebApplicationType.NONE : WebApplicationType.SERVLET)
                 .run(args);
 
+        if (batch) {
+            System.exit(batchProcessor.run() ? 0 : 1);
+        }
+        if (streamManager.isConfigured()) {
+            streamManager.run();
+            return;
+        }
         mainClass.start();
     }
 
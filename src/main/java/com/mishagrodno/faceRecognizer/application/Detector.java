@@ -5,7 +5,6 @@ import org.bytedeco.javacpp.opencv_core;
 import org.bytedeco.javacpp.opencv_core.Mat;
 import org.bytedeco.javacpp.opencv_core.Rect;
 import org.bytedeco.javacpp.opencv_core.RectVector;
-import org.bytedeco.javacpp.opencv_core.Size;
 import org.bytedeco.javacpp.opencv_objdetect;
 import org.bytedeco.javacpp.opencv_objdetect.CascadeClassifier;
 import org.slf4j.Logger;
@@ -19,14 +18,22 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * The Detector class.
+ * {@link CascadeClassifier} can't be shared between threads, so every thread gets its own classifier instance.
+ * Eyes are scanned for on whole frames, whose geometry depends on the camera, so every stream keeps its own
+ * eye {@link ScanWindow}. Faces are scanned for on aligned canvases of the same size, so their window is shared.
+ *
+ * @author Gomanchuk Mikhail.
+ */
 @Component
 public class Detector {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Detector.class);
 
-    private CascadeClassifier eyeClassifier;
+    private ThreadLocal<CascadeClassifier> eyeClassifier;
 
-    private CascadeClassifier faceClassifier;
+    private ThreadLocal<CascadeClassifier> faceClassifier;
 
     @Value("${classifier.eye.name}")
     private String eyeClassifierName;
@@ -34,29 +41,91 @@ public class Detector {
     @Value("${classifier.face.name}")
     private String faceClassifierName;
 
+    @Value("${classifier.eye.scale-factor:1.1}")
+    private double eyeScaleFactor;
+
+    @Value("${classifier.eye.min-neighbors:5}")
+    private int eyeMinNeighbors;
+
+    @Value("${classifier.eye.min-size:0}")
+    private int eyeMinSize;
+
+    @Value("${classifier.eye.max-size:0}")
+    private int eyeMaxSize;
+
+    @Value("${classifier.eye.calibration:false}")
+    private boolean eyeCalibration;
+
+    @Value("${classifier.face.scale-factor:1.1}")
+    private double faceScaleFactor;
+
+    @Value("${classifier.face.min-neighbors:5}")
+    private int faceMinNeighbors;
+
+    @Value("${classifier.face.min-size:0}")
+    private int faceMinSize;
+
+    @Value("${classifier.face.max-size:0}")
+    private int faceMaxSize;
+
+    @Value("${classifier.face.calibration:false}")
+    private boolean faceCalibration;
+
+    @Value("${classifier.calibration.full-scan-interval:50}")
+    private int fullScanInterval;
+
+    private ScanWindow faceWindow;
+
     public Detector() {
 
     }
 
     @PostConstruct
     void init() {
-        eyeClassifier = createClassifier(eyeClassifierName, "eye-cascade");
-        faceClassifier = createClassifier(faceClassifierName, "face-cascade");
+        eyeClassifier = perThread(extractClassifier(eyeClassifierName, "eye-cascade"));
+        faceClassifier = perThread(extractClassifier(faceClassifierName, "face-cascade"));
+
+        faceWindow = new ScanWindow(faceScaleFactor, faceMinNeighbors, faceMinSize, faceMaxSize, faceCalibration,
+                fullScanInterval);
     }
 
+    /**
+     * Detects faces, safe to call from several threads.
+     *
+     * @param image image.
+     * @return faces.
+     */
     public List<Rect> detectFaces(Mat image) {
-        return detect(image, faceClassifier);
+        return detect(image, faceClassifier.get(), faceWindow);
     }
 
-    public List<Rect> detectEyes(Mat image) {
-        return detect(image, eyeClassifier);
+    /**
+     * Creates window of eye sizes for a single stream.
+     *
+     * @return eye window.
+     */
+    public ScanWindow eyeWindow() {
+        return new ScanWindow(eyeScaleFactor, eyeMinNeighbors, eyeMinSize, eyeMaxSize, eyeCalibration,
+                fullScanInterval);
     }
 
-    private List<Rect> detect(Mat image, CascadeClassifier eyeClassifier) {
+    /**
+     * Detects eyes, safe to call from several threads.
+     *
+     * @param image  image.
+     * @param window eye window of the stream the image comes from.
+     * @return eyes.
+     */
+    public List<Rect> detectEyes(Mat image, ScanWindow window) {
+        return detect(image, eyeClassifier.get(), window);
+    }
+
+    private List<Rect> detect(Mat image, CascadeClassifier eyeClassifier, ScanWindow window) {
         final RectVector eyesVector = new RectVector();
+        final ScanWindow.Scan scan = window.next(image.size());
 
-        eyeClassifier.detectMultiScale(image, eyesVector, 1.1, 5, 1, new Size(),
-                new Size(image.size().width(), image.size().height()));
+        eyeClassifier.detectMultiScale(image, eyesVector, window.getScaleFactor(), window.getMinNeighbors(), 1,
+                scan.getMin(), scan.getMax());
 
         final List<Rect> filteredEyes = new ArrayList<>();
 
@@ -66,18 +135,21 @@ public class Detector {
             }
         }
 
+        window.record(scan, filteredEyes);
         return filteredEyes;
     }
 
-    private CascadeClassifier createClassifier(String fileName, String prefix) {
+    private ThreadLocal<CascadeClassifier> perThread(String classifierLocation) {
+        return ThreadLocal.withInitial(() -> classifierLocation == null ? null : new CascadeClassifier(classifierLocation));
+    }
+
+    private String extractClassifier(String fileName, String prefix) {
         final URL classifierURL = getClass().getClassLoader().getResource(fileName);
 
         try {
-            final String classifierLocation = Loader
+            return Loader
                     .extractResource(classifierURL, null, prefix, ".xml")
                     .getAbsolutePath();
-
-            return new CascadeClassifier(classifierLocation);
         } catch (final IOException e) {
             LOGGER.error("Can't create classifier: {}", fileName);
             return null;
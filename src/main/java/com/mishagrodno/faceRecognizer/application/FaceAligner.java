@@ -0,0 +1,205 @@
+package com.mishagrodno.faceRecognizer.application;
+
+import com.mishagrodno.faceRecognizer.application.pipeline.FrameContext;
+import org.bytedeco.javacpp.indexer.DoubleRawIndexer;
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacpp.opencv_core.Rect;
+import org.bytedeco.javacpp.opencv_core.Size;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import static org.bytedeco.javacpp.opencv_core.CV_64F;
+import static org.bytedeco.javacpp.opencv_imgproc.INTER_LINEAR;
+import static org.bytedeco.javacpp.opencv_imgproc.resize;
+import static org.bytedeco.javacpp.opencv_imgproc.warpAffine;
+
+/**
+ * The aligner which maps a face from the frame onto fixed-size images.
+ * A single affine transform built from the eye centers rotates, scales and crops the face at once: the eyes land
+ * on fixed points of the canvas, so faces of every size and angle look alike. The warp only reads the frame pixels
+ * it maps onto the canvas, so no part of the frame is copied. Canvases are taken from the pool and all have the same
+ * size, so they are reused from frame to frame.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@Component
+public class FaceAligner {
+
+    /**
+     * Height of the eyes on the canvas, in canvas heights.
+     */
+    private static final double EYE_Y = 0.35;
+
+    /**
+     * Position of the left eye on the canvas, in canvas widths, the right one is placed symmetrically.
+     */
+    private static final double LEFT_EYE_X = 0.35;
+
+    @Value("${alignment.canvas.width:100}")
+    private int canvasWidth;
+
+    @Value("${alignment.canvas.height:120}")
+    private int canvasHeight;
+
+    @Value("${alignment.face-size:100}")
+    private int faceSize;
+
+    /**
+     * Builds transform which puts the eyes onto their canvas points.
+     *
+     * @param eye1 first eye.
+     * @param eye2 second eye.
+     * @return transform from the image to the canvas.
+     */
+    public Transform align(final Rect eye1, final Rect eye2) {
+        final Rect left = eye1.x() < eye2.x() ? eye1 : eye2;
+        final Rect right = left == eye1 ? eye2 : eye1;
+
+        final double leftX = left.x() + left.width() / 2.0;
+        final double leftY = left.y() + left.height() / 2.0;
+        final double deltaX = right.x() + right.width() / 2.0 - leftX;
+        final double deltaY = right.y() + right.height() / 2.0 - leftY;
+
+        final double angle = Math.atan2(deltaY, deltaX);
+        final double scale = (1 - 2 * LEFT_EYE_X) * canvasWidth / Math.hypot(deltaX, deltaY);
+        final double cos = scale * Math.cos(angle);
+        final double sin = scale * Math.sin(angle);
+
+        // rotates by the opposite of the face angle around the left eye and moves it onto its canvas point.
+        return new Transform(cos, sin, -sin, cos,
+                LEFT_EYE_X * canvasWidth - (cos * leftX + sin * leftY),
+                EYE_Y * canvasHeight - (-sin * leftX + cos * leftY),
+                angle, canvasWidth, canvasHeight);
+    }
+
+    /**
+     * Warps the face onto the canvas.
+     *
+     * @param image     image the eyes were found on.
+     * @param transform transform from the image to the canvas.
+     * @param pool      pool of images.
+     * @return canvas, it should be returned to the pool.
+     */
+    public Mat canvas(final Mat image, final Transform transform, final MatPool pool) {
+        final Mat canvas = pool.acquire(transform.height, transform.width, image.type());
+        warp(image, transform, canvas);
+        return canvas;
+    }
+
+    /**
+     * Warps the face found on the canvas onto the face-sized image, the face fills the whole image.
+     *
+     * @param image     image the eyes were found on.
+     * @param transform transform from the image to the canvas.
+     * @param face      face on the canvas.
+     * @param frame     frame the face image is taken for.
+     * @return face image, owned by the frame.
+     */
+    public Mat face(final Mat image, final Transform transform, final Rect face, final FrameContext frame) {
+        final double scale = faceSize / (double) face.width();
+        final Transform toFace = new Transform(scale * transform.a, scale * transform.b, scale * transform.c,
+                scale * transform.d, scale * (transform.x - face.x()), scale * (transform.y - face.y()),
+                transform.angle, faceSize, (int) Math.round(face.height() * scale));
+
+        final Mat faceImage = frame.acquire(toFace.height, toFace.width, image.type());
+        warp(image, toFace, faceImage);
+        return faceImage;
+    }
+
+    /**
+     * Resizes the upright face onto the face-sized image.
+     *
+     * @param image image.
+     * @param face  face on the image.
+     * @param frame frame the face image is taken for.
+     * @return face image, owned by the frame.
+     */
+    public Mat face(final Mat image, final Rect face, final FrameContext frame) {
+        final int height = (int) Math.round(face.height() * faceSize / (double) face.width());
+        final Mat area = new Mat(image, face);
+        final Mat faceImage = frame.acquire(height, faceSize, image.type());
+        resize(area, faceImage, faceImage.size(), 0, 0, INTER_LINEAR);
+        area.release();
+        return faceImage;
+    }
+
+    private static void warp(final Mat image, final Transform transform, final Mat target) {
+        final Mat matrix = new Mat(2, 3, CV_64F);
+        final DoubleRawIndexer indexer = matrix.createIndexer();
+        indexer.put(0, 0, transform.a);
+        indexer.put(0, 1, transform.b);
+        indexer.put(0, 2, transform.x);
+        indexer.put(1, 0, transform.c);
+        indexer.put(1, 1, transform.d);
+        indexer.put(1, 2, transform.y);
+
+        warpAffine(image, target, matrix, new Size(transform.width, transform.height));
+
+        indexer.release();
+        matrix.release();
+    }
+
+    /**
+     * Affine transform from the image to the canvas.
+     */
+    public static class Transform {
+
+        private final double a;
+
+        private final double b;
+
+        private final double c;
+
+        private final double d;
+
+        private final double x;
+
+        private final double y;
+
+        private final double angle;
+
+        private final int width;
+
+        private final int height;
+
+        private Transform(final double a, final double b, final double c, final double d, final double x,
+                          final double y, final double angle, final int width, final int height) {
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            this.d = d;
+            this.x = x;
+            this.y = y;
+            this.angle = angle;
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * Gets face angle.
+         *
+         * @return angle in radians.
+         */
+        public double getAngle() {
+            return angle;
+        }
+
+        /**
+         * Maps face found on the canvas back to the image.
+         * The face is rotated on the image, its position is the mapped top left corner and its size is unscaled.
+         *
+         * @param face face on the canvas.
+         * @return face on the image.
+         */
+        public Rect toImage(final Rect face) {
+            final double determinant = a * d - b * c;
+            final double faceX = face.x() - x;
+            final double faceY = face.y() - y;
+            final double scale = Math.sqrt(determinant);
+
+            return new Rect((int) Math.round((d * faceX - b * faceY) / determinant),
+                    (int) Math.round((a * faceY - c * faceX) / determinant),
+                    (int) Math.round(face.width() / scale), (int) Math.round(face.height() / scale));
+        }
+    }
+}
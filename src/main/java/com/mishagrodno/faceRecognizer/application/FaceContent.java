@@ -0,0 +1,131 @@
+package com.mishagrodno.faceRecognizer.application;
+
+import com.mishagrodno.faceRecognizer.db.entity.ContentEncoding;
+import com.mishagrodno.faceRecognizer.db.entity.FaceEntity;
+import com.mishagrodno.faceRecognizer.db.file.MappedBlob;
+import com.mishagrodno.faceRecognizer.db.service.FaceSample;
+import net.jpountz.lz4.LZ4Factory;
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.javacpp.opencv_core.Mat;
+
+import java.nio.ByteBuffer;
+import java.sql.Blob;
+import java.sql.SQLException;
+
+import static org.bytedeco.javacpp.opencv_core.CV_8UC1;
+import static org.bytedeco.javacpp.opencv_imgcodecs.IMREAD_GRAYSCALE;
+import static org.bytedeco.javacpp.opencv_imgcodecs.imdecode;
+import static org.bytedeco.javacpp.opencv_imgcodecs.imencode;
+
+/**
+ * The class with methods converting face images to the stored content and back.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class FaceContent {
+
+    private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+
+    /**
+     * Encodes face image.
+     *
+     * @param face     face image.
+     * @param encoding encoding.
+     * @return content.
+     */
+    public static byte[] encode(final Mat face, final ContentEncoding encoding) {
+        switch (encoding) {
+            case RAW:
+                return pixels(face);
+            case RAW_LZ4:
+                return LZ4.fastCompressor().compress(pixels(face));
+            default:
+                final BytePointer buffer = new BytePointer();
+                imencode(".jpg", face, buffer);
+                final byte[] bytes = new byte[(int) buffer.limit()];
+                buffer.get(bytes);
+                buffer.deallocate();
+                return bytes;
+        }
+    }
+
+    /**
+     * Decodes face image.
+     *
+     * @param face face.
+     * @return face image or null if content can't be decoded.
+     * @throws SQLException if content can't be read.
+     */
+    public static Mat decode(final FaceEntity face) throws SQLException {
+        return decode(face.getContent(), face.getEncoding(), face.getType(), face.getWidth(), face.getHeight());
+    }
+
+    /**
+     * Decodes face image of the sample.
+     *
+     * @param sample face sample.
+     * @return face image or null if content can't be decoded.
+     * @throws SQLException if content can't be read.
+     */
+    public static Mat decode(final FaceSample sample) throws SQLException {
+        return decode(sample.getContent(), sample.getEncoding(), sample.getType(), sample.getWidth(),
+                sample.getHeight());
+    }
+
+    private static Mat decode(final Blob content, final ContentEncoding encoding, final Integer type,
+                              final Integer width, final Integer height) throws SQLException {
+        if (content instanceof MappedBlob) {
+            return decode(((MappedBlob) content).getBuffer(), encoding, type, width, height);
+        }
+        final byte[] bytes = content.getBytes(1, (int) content.length());
+
+        switch (encoding) {
+            case RAW:
+            case RAW_LZ4:
+                final Mat image = new Mat(height, width, type);
+                final int length = (int) (image.total() * image.elemSize());
+                image.data().put(encoding == ContentEncoding.RAW
+                        ? bytes
+                        : LZ4.fastDecompressor().decompress(bytes, length), 0, length);
+                return image;
+            default:
+                final Mat gray = imdecode(new Mat(bytes), IMREAD_GRAYSCALE);
+                return gray.empty() ? null : gray;
+        }
+    }
+
+    /**
+     * Decodes face image straight from the direct buffer, without copying content to the heap.
+     */
+    private static Mat decode(final ByteBuffer content, final ContentEncoding encoding, final Integer type,
+                              final Integer width, final Integer height) {
+        switch (encoding) {
+            case RAW:
+            case RAW_LZ4:
+                final Mat image = new Mat(height, width, type);
+                final int length = (int) (image.total() * image.elemSize());
+                final ByteBuffer pixels = image.data().capacity(length).asByteBuffer();
+                if (encoding == ContentEncoding.RAW) {
+                    pixels.put(content);
+                } else {
+                    LZ4.fastDecompressor().decompress(content, content.position(), pixels, 0, length);
+                }
+                return image;
+            default:
+                final Mat encoded = new Mat(1, content.remaining(), CV_8UC1, new BytePointer(content));
+                final Mat gray = imdecode(encoded, IMREAD_GRAYSCALE);
+                encoded.release();
+                return gray.empty() ? null : gray;
+        }
+    }
+
+    private static byte[] pixels(final Mat face) {
+        final Mat continuous = face.isContinuous() ? face : face.clone();
+        final byte[] bytes = new byte[(int) (continuous.total() * continuous.elemSize())];
+        continuous.data().get(bytes);
+        if (continuous != face) {
+            continuous.release();
+        }
+        return bytes;
+    }
+}
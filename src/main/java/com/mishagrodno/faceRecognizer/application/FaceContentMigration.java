@@ -0,0 +1,99 @@
+package com.mishagrodno.faceRecognizer.application;
+
+import com.mishagrodno.faceRecognizer.db.entity.ContentEncoding;
+import com.mishagrodno.faceRecognizer.db.entity.FaceEntity;
+import com.mishagrodno.faceRecognizer.db.service.FaceService;
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import javax.sql.rowset.serial.SerialBlob;
+import java.util.List;
+
+/**
+ * The job which re-encodes saved faces to the configured encoding.
+ * Runs on startup when enabled.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@Component
+public class FaceContentMigration implements ApplicationRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FaceContentMigration.class);
+
+    private final FaceService faceService;
+
+    @Value("${face.migration.enabled:false}")
+    private boolean enabled;
+
+    @Value("${face.encoding:JPEG}")
+    private ContentEncoding encoding;
+
+    @Value("${recognizer.page.size:500}")
+    private int pageSize;
+
+    @Autowired
+    public FaceContentMigration(final FaceService faceService) {
+        this.faceService = faceService;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void run(final ApplicationArguments args) {
+        if (enabled) {
+            migrate();
+        }
+    }
+
+    /**
+     * Re-encodes all faces which are not in the configured encoding yet.
+     */
+    public void migrate() {
+        final long start = System.currentTimeMillis();
+        int migrated = 0;
+        int failed = 0;
+
+        long lastId = 0;
+        List<FaceEntity> page;
+        while (!(page = faceService.allAfter(lastId, pageSize)).isEmpty()) {
+            lastId = page.get(page.size() - 1).getId();
+
+            for (final FaceEntity face : page) {
+                if (face.getEncoding() == encoding) {
+                    continue;
+                }
+
+                try {
+                    final Mat image = FaceContent.decode(face);
+                    if (image == null) {
+                        failed++;
+                        continue;
+                    }
+
+                    face.setContent(new SerialBlob(FaceContent.encode(image, encoding)));
+                    face.setEncoding(encoding);
+                    face.setType(image.type());
+                    face.setHeight(image.rows());
+                    face.setWidth(image.cols());
+                    faceService.save(face);
+
+                    image.release();
+                    migrated++;
+                } catch (final Exception e) {
+                    LOGGER.error("Can't migrate face {}: {}", face.getId(), e.getLocalizedMessage(), e);
+                    failed++;
+                }
+            }
+        }
+
+        LOGGER.info("{} face(s) migrated to {}, {} failed, took: {}", migrated, encoding, failed,
+                System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,210 @@
+package com.mishagrodno.faceRecognizer.application;
+
+import com.mishagrodno.faceRecognizer.db.entity.ContentEncoding;
+import com.mishagrodno.faceRecognizer.db.entity.FaceEntity;
+import com.mishagrodno.faceRecognizer.db.entity.HumanEntity;
+import com.mishagrodno.faceRecognizer.db.service.FaceService;
+import com.mishagrodno.faceRecognizer.db.service.HumanService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.rowset.serial.SerialBlob;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The write-behind enrollment of new faces.
+ * Faces are copied into a bounded queue and the frame goes on at once, a single writer encodes them and saves
+ * them in batches, then the recognizer picks them up in the background. When the queue is full new faces are dropped,
+ * so a burst of faces never holds up live frames.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@Component
+public class FaceEnrollment {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FaceEnrollment.class);
+
+    private static final long POLL_TIMEOUT_MS = 100;
+
+    private final FaceService faceService;
+
+    private final HumanService humanService;
+
+    private final Recognizer recognizer;
+
+    private final MeterRegistry registry;
+
+    private final Counter dropped;
+
+    private final Timer batchTimer;
+
+    @Value("${enrollment.queue.capacity:256}")
+    private int queueCapacity;
+
+    @Value("${enrollment.batch-size:50}")
+    private int batchSize;
+
+    @Value("${enrollment.batch-wait:200}")
+    private long batchWait;
+
+    @Value("${face.encoding:JPEG}")
+    private ContentEncoding encoding;
+
+    private BlockingQueue<Enrollment> queue;
+
+    private Thread writer;
+
+    private volatile boolean running;
+
+    @Autowired
+    public FaceEnrollment(final FaceService faceService, final HumanService humanService, final Recognizer recognizer,
+                          final MeterRegistry registry) {
+        this.faceService = faceService;
+        this.humanService = humanService;
+        this.recognizer = recognizer;
+        this.registry = registry;
+        this.dropped = Counter.builder("face.enrollment.dropped")
+                .description("Faces dropped because the enrollment queue was full")
+                .register(registry);
+        this.batchTimer = Timer.builder("face.enrollment.batch")
+                .description("Time to encode and save a batch of enrolled faces")
+                .register(registry);
+    }
+
+    @PostConstruct
+    void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder("face.enrollment.queue", queue, BlockingQueue::size)
+                .description("Faces waiting to be saved")
+                .register(registry);
+
+        running = true;
+        writer = new Thread(this::write, "face-enrollment");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Saves faces left in the queue and stops the writer.
+     *
+     * @throws InterruptedException if interrupted while waiting for the writer.
+     */
+    @PreDestroy
+    void destroy() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.MINUTES.toMillis(1));
+    }
+
+    /**
+     * Enqueues face for saving, the face is copied, so the caller may release it right away.
+     *
+     * @param name name of the human.
+     * @param face face.
+     * @return false if the queue is full and the face is dropped.
+     */
+    public boolean enroll(final String name, final Mat face) {
+        final Enrollment enrollment = new Enrollment(name, face.clone());
+        if (queue.offer(enrollment)) {
+            return true;
+        }
+
+        enrollment.face.release();
+        dropped.increment();
+        LOGGER.warn("Enrollment queue is full, face of {} is dropped", name);
+        return false;
+    }
+
+    private void write() {
+        final List<Enrollment> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                final Enrollment first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // faces of a burst arriving shortly after are saved with the first one.
+                final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchWait);
+                while (batch.size() < batchSize) {
+                    final Enrollment next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                save(batch);
+                batch.clear();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            batch.forEach(enrollment -> enrollment.face.release());
+            queue.forEach(enrollment -> enrollment.face.release());
+            queue.clear();
+        }
+    }
+
+    private void save(final List<Enrollment> batch) {
+        final long start = System.nanoTime();
+        try {
+            final Map<String, HumanEntity> humans = new HashMap<>();
+            final List<FaceEntity> faces = new ArrayList<>(batch.size());
+            for (final Enrollment enrollment : batch) {
+                final Mat image = enrollment.face;
+
+                final FaceEntity face = new FaceEntity();
+                face.setContent(new SerialBlob(FaceContent.encode(image, encoding)));
+                face.setEncoding(encoding);
+                face.setType(image.type());
+                face.setHeight(image.rows());
+                face.setWidth(image.cols());
+                face.setOwner(humans.computeIfAbsent(enrollment.name, humanService::getOrCreate));
+                faces.add(face);
+            }
+
+            faceService.saveAll(faces);
+            recognizer.update();
+
+            LOGGER.info("{} face(s) enrolled, took: {}", faces.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (final Exception e) {
+            LOGGER.error("Can't save {} face(s): {}", batch.size(), e.getLocalizedMessage(), e);
+        } finally {
+            batch.forEach(enrollment -> enrollment.face.release());
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Face waiting to be saved.
+     */
+    private static class Enrollment {
+
+        private final String name;
+
+        private final Mat face;
+
+        private Enrollment(final String name, final Mat face) {
+            this.name = name;
+            this.face = face;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.mishagrodno.faceRecognizer.application;
+
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacpp.opencv_core.Rect;
+import org.bytedeco.javacpp.opencv_core.Rect2d;
+import org.bytedeco.javacpp.opencv_tracking.Tracker;
+
+/**
+ * The face followed between frames.
+ * Keeps the result of its last recognition for the frames the face is only tracked on.
+ * The result holds only while the model which gave it is published.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class FaceTrack {
+
+    private final Tracker tracker;
+
+    private final Rect2d box;
+
+    private double angle;
+
+    private volatile String name;
+
+    private volatile boolean recognized;
+
+    private volatile long modelVersion;
+
+    /**
+     * Creates track.
+     *
+     * @param tracker not initialized tracker.
+     * @param image   image the face was detected on.
+     * @param box     face position on the image.
+     * @param angle   face angle in radians.
+     */
+    FaceTrack(final Tracker tracker, final Mat image, final Rect box, final double angle) {
+        this.tracker = tracker;
+        this.box = new Rect2d(box.x(), box.y(), box.width(), box.height());
+        this.angle = angle;
+        tracker.init(image, this.box);
+    }
+
+    /**
+     * Moves the track to the face position on the next image.
+     *
+     * @param image image.
+     * @return false if the face is lost.
+     */
+    boolean update(final Mat image) {
+        return tracker.update(image, box);
+    }
+
+    /**
+     * Gets face position on the tracked image.
+     *
+     * @return face position.
+     */
+    public Rect getBox() {
+        return new Rect((int) box.x(), (int) box.y(), (int) box.width(), (int) box.height());
+    }
+
+    /**
+     * Gets face position on the original image.
+     *
+     * @param scale scale of the original image relative to the tracked one.
+     * @return face position.
+     */
+    public Rect getFace(final double scale) {
+        return new Rect((int) (box.x() * scale), (int) (box.y() * scale), (int) (box.width() * scale),
+                (int) (box.height() * scale));
+    }
+
+    /**
+     * Gets face angle.
+     *
+     * @return angle in radians.
+     */
+    public double getAngle() {
+        return angle;
+    }
+
+    /**
+     * Sets face angle.
+     *
+     * @param angle angle in radians.
+     */
+    void setAngle(final double angle) {
+        this.angle = angle;
+    }
+
+    /**
+     * Gets name of the recognized human.
+     *
+     * @return name or null if the face was not recognized yet.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Is face recognized.
+     *
+     * @return true if recognized.
+     */
+    public boolean isRecognized() {
+        return recognized;
+    }
+
+    /**
+     * Tells if the face was recognized by the model with given version.
+     *
+     * @param modelVersion version of the published model.
+     * @return true if recognized by that model.
+     */
+    public boolean isRecognizedBy(final long modelVersion) {
+        return recognized && this.modelVersion == modelVersion;
+    }
+
+    /**
+     * Stores recognition result.
+     *
+     * @param name         name of the human.
+     * @param recognized   is face recognized.
+     * @param modelVersion version of the model which recognized the face.
+     */
+    public void setResult(final String name, final boolean recognized, final long modelVersion) {
+        this.name = name;
+        this.recognized = recognized;
+        this.modelVersion = modelVersion;
+    }
+
+    /**
+     * Releases tracker.
+     */
+    void release() {
+        tracker.deallocate();
+        box.deallocate();
+    }
+}
@@ -0,0 +1,133 @@
+package com.mishagrodno.faceRecognizer.application;
+
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacpp.opencv_core.Rect;
+import org.bytedeco.javacpp.opencv_tracking.Tracker;
+import org.bytedeco.javacpp.opencv_tracking.TrackerKCF;
+import org.bytedeco.javacpp.opencv_tracking.TrackerMOSSE;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The tracker of faces on a single stream.
+ * Full detection runs only every few frames or when a track is lost, faces are followed by cheap trackers in between.
+ * Not thread safe, every stream has its own tracker.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class FaceTracker {
+
+    /**
+     * Min size of the tracked face.
+     */
+    private static final int MIN_SIZE = 8;
+
+    private final String type;
+
+    private final int detectionInterval;
+
+    private final List<FaceTrack> tracks = new ArrayList<>();
+
+    private final List<FaceTrack> detected = new ArrayList<>();
+
+    private int framesSinceDetection;
+
+    private boolean lost;
+
+    /**
+     * Creates face tracker.
+     *
+     * @param type              tracker type, MOSSE or KCF.
+     * @param detectionInterval count of frames between full detections.
+     */
+    public FaceTracker(final String type, final int detectionInterval) {
+        this.type = type;
+        this.detectionInterval = detectionInterval;
+    }
+
+    /**
+     * Tells if full detection should run on the next frame.
+     *
+     * @return true if detection is needed.
+     */
+    public boolean needsDetection() {
+        return lost || tracks.isEmpty() || framesSinceDetection >= detectionInterval;
+    }
+
+    /**
+     * Moves all tracks to the next image, lost tracks are dropped.
+     *
+     * @param image image.
+     * @return tracks.
+     */
+    public List<FaceTrack> track(final Mat image) {
+        framesSinceDetection++;
+
+        final Iterator<FaceTrack> iterator = tracks.iterator();
+        while (iterator.hasNext()) {
+            final FaceTrack track = iterator.next();
+            if (!track.update(image)) {
+                track.release();
+                iterator.remove();
+                lost = true;
+            }
+        }
+
+        return Collections.unmodifiableList(tracks);
+    }
+
+    /**
+     * Starts tracking of the detected face.
+     * The track starts without a recognition result, the detected face is recognized again, since it may be
+     * another human in the same place.
+     *
+     * @param image image the face was detected on.
+     * @param face  face position on the image.
+     * @param angle face angle in radians.
+     * @return track or null if the face can't be tracked.
+     */
+    public FaceTrack detected(final Mat image, final Rect face, final double angle) {
+        final int x = Math.max(0, face.x());
+        final int y = Math.max(0, face.y());
+        final int width = Math.min(face.x() + face.width(), image.cols()) - x;
+        final int height = Math.min(face.y() + face.height(), image.rows()) - y;
+        if (width < MIN_SIZE || height < MIN_SIZE) {
+            return null;
+        }
+
+        final Rect box = new Rect(x, y, width, height);
+        final FaceTrack track = new FaceTrack(createTracker(), image, box, angle);
+        detected.add(track);
+        return track;
+    }
+
+    /**
+     * Finishes full detection, tracks of faces which were not detected again are dropped.
+     */
+    public void detectionDone() {
+        tracks.forEach(FaceTrack::release);
+        tracks.clear();
+        tracks.addAll(detected);
+        detected.clear();
+
+        framesSinceDetection = 0;
+        lost = false;
+    }
+
+    /**
+     * Releases all tracks.
+     */
+    public void release() {
+        tracks.forEach(FaceTrack::release);
+        tracks.clear();
+        detected.forEach(FaceTrack::release);
+        detected.clear();
+    }
+
+    private Tracker createTracker() {
+        return "KCF".equalsIgnoreCase(type) ? TrackerKCF.create() : TrackerMOSSE.create();
+    }
+}
@@ -0,0 +1,174 @@
+package com.mishagrodno.faceRecognizer.application;
+
+import com.mishagrodno.faceRecognizer.application.pipeline.FrameContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacpp.opencv_core.Size;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.bytedeco.javacpp.opencv_core.CV_8UC1;
+import static org.bytedeco.javacpp.opencv_core.subtract;
+import static org.bytedeco.javacpp.opencv_imgproc.*;
+
+/**
+ * The preprocessor which turns a color frame into the downscaled grayscale image and the image prepared for
+ * detection. The frame is converted to grayscale first, so only a single channel is resized, then the configured
+ * chain of steps is applied to the prepared image in place. All images are taken from the frame pool.
+ * One preprocessor is shared by all pipelines, so it keeps no per frame state.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@Component
+public class FramePreprocessor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FramePreprocessor.class);
+
+    /**
+     * Step of the preparation chain.
+     */
+    public enum Step {
+
+        /**
+         * Subtracts Canny edges, so eyes stand out of the surrounding skin.
+         */
+        CANNY,
+
+        /**
+         * Equalizes the histogram, evens out under and over exposed frames.
+         */
+        EQUALIZE
+    }
+
+    private final MeterRegistry registry;
+
+    private final Map<Step, Timer> stepTimers = new EnumMap<>(Step.class);
+
+    private final List<Step> steps = new ArrayList<>();
+
+    private Timer grayTimer;
+
+    private Timer resizeTimer;
+
+    @Value("${preprocess.chain:canny}")
+    private String[] chain;
+
+    @Value("${preprocess.canny.low:50}")
+    private double cannyLow;
+
+    @Value("${preprocess.canny.high:200}")
+    private double cannyHigh;
+
+    @Autowired
+    public FramePreprocessor(final MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @PostConstruct
+    void init() {
+        for (final String name : chain) {
+            if (!name.trim().isEmpty()) {
+                steps.add(Step.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+            }
+        }
+
+        grayTimer = timer("gray");
+        resizeTimer = timer("resize");
+        steps.forEach(step -> stepTimers.put(step, timer(step.name().toLowerCase(Locale.ROOT))));
+
+        LOGGER.info("Preprocessing chain: {}", steps);
+    }
+
+    /**
+     * Prepares frame for detection, sets its grayscale and prepared images.
+     * Prepared image is the grayscale one when the chain is empty.
+     *
+     * @param frame frame with the original image.
+     * @param scale downscale factor.
+     */
+    public void prepare(final FrameContext frame, final double scale) {
+        final Mat image = frame.getImage();
+        final int width = (int) (image.cols() / scale);
+        final int height = (int) (image.rows() / scale);
+
+        long start = System.nanoTime();
+        final Mat fullGray = frame.getPool().acquire(image.rows(), image.cols(), CV_8UC1);
+        cvtColor(image, fullGray, CV_BGR2GRAY);
+        start = record(grayTimer, start);
+
+        final Mat gray = frame.acquire(height, width, CV_8UC1);
+        resize(fullGray, gray, new Size(width, height));
+        frame.getPool().release(fullGray);
+        start = record(resizeTimer, start);
+
+        frame.setGray(gray);
+        if (steps.isEmpty()) {
+            frame.setPrepared(gray);
+            return;
+        }
+
+        final Mat prepared = frame.acquire(height, width, CV_8UC1);
+        Mat source = gray;
+        for (final Step step : steps) {
+            apply(step, frame, source, prepared);
+            source = prepared;
+            start = record(stepTimers.get(step), start);
+        }
+        frame.setPrepared(prepared);
+    }
+
+    /**
+     * Gets steps of the preparation chain.
+     *
+     * @return steps in order.
+     */
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    private void apply(final Step step, final FrameContext frame, final Mat source, final Mat target) {
+        switch (step) {
+            case CANNY:
+                // Canny can't write into its source, so edges of the prepared image go to a scratch image.
+                final Mat edges = source == target
+                        ? frame.getPool().acquire(source.rows(), source.cols(), CV_8UC1)
+                        : target;
+                Canny(source, edges, cannyLow, cannyHigh, 3, false);
+                subtract(source, edges, target);
+                if (edges != target) {
+                    frame.getPool().release(edges);
+                }
+                break;
+            case EQUALIZE:
+                equalizeHist(source, target);
+                break;
+            default:
+                throw new IllegalStateException("Unknown step " + step);
+        }
+    }
+
+    private Timer timer(final String step) {
+        return Timer.builder("face.preprocess")
+                .description("Time of a preprocessing step")
+                .tag("step", step)
+                .register(registry);
+    }
+
+    private static long record(final Timer timer, final long start) {
+        final long now = System.nanoTime();
+        timer.record(now - start, TimeUnit.NANOSECONDS);
+        return now;
+    }
+}
@@ -0,0 +1,275 @@
+package com.mishagrodno.faceRecognizer.application;
+
+import com.mishagrodno.faceRecognizer.application.index.ChiSquare;
+import com.mishagrodno.faceRecognizer.application.index.ExactIndex;
+import com.mishagrodno.faceRecognizer.application.index.FaceIndex;
+import com.mishagrodno.faceRecognizer.application.index.LbphHistogram;
+import com.mishagrodno.faceRecognizer.db.entity.FaceEntity;
+import com.mishagrodno.faceRecognizer.db.entity.HumanEntity;
+import com.mishagrodno.faceRecognizer.db.service.FaceService;
+import com.mishagrodno.faceRecognizer.db.service.HumanService;
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The job which removes near-duplicate faces from the gallery.
+ * Faces of every human are clustered by the distance of their histograms, faces closer than the duplicate distance
+ * to an earlier face join its cluster. When a human has too many clusters, the most distant ones are kept.
+ * Only the first face of every kept cluster stays in the gallery.
+ * Runs in the background on startup when enabled, in dry run mode nothing is deleted.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@Component
+public class GalleryCompaction implements ApplicationRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GalleryCompaction.class);
+
+    /**
+     * Max count of faces searched for when the recognition time is measured.
+     */
+    private static final int PROBES = 100;
+
+    /**
+     * Max count of faces the recognition time is measured on, the exact scan time grows with the gallery
+     * linearly, so the time of the whole gallery is scaled from the time of the sample.
+     */
+    private static final int SAMPLE = 10_000;
+
+    private final FaceService faceService;
+
+    private final HumanService humanService;
+
+    private final Recognizer recognizer;
+
+    @Value("${gallery.compaction.enabled:false}")
+    private boolean enabled;
+
+    @Value("${gallery.compaction.dry-run:true}")
+    private boolean dryRun;
+
+    @Value("${gallery.compaction.distance:25}")
+    private double duplicateDistance;
+
+    @Value("${gallery.compaction.max-prototypes:10}")
+    private int maxPrototypes;
+
+    @Autowired
+    public GalleryCompaction(final FaceService faceService, final HumanService humanService,
+                             final Recognizer recognizer) {
+        this.faceService = faceService;
+        this.humanService = humanService;
+        this.recognizer = recognizer;
+    }
+
+    @PostConstruct
+    void init() {
+        // with no prototypes kept, every face of every human would be deleted.
+        if (maxPrototypes < 1) {
+            throw new IllegalStateException("gallery.compaction.max-prototypes must be at least 1, it is "
+                    + maxPrototypes);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void run(final ApplicationArguments args) {
+        if (enabled) {
+            final Thread thread = new Thread(this::compact, "gallery-compaction");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Removes near-duplicate faces of every human and reports the gallery size and recognition time it saves.
+     */
+    public void compact() {
+        final long start = System.currentTimeMillis();
+        final FaceIndex sample = new ExactIndex(LbphHistogram.DIMENSIONS);
+        final List<float[]> probes = new ArrayList<>();
+        int before = 0;
+        int after = 0;
+        int humans = 0;
+        int failed = 0;
+
+        for (final HumanEntity human : humanService.all()) {
+            final List<FaceEntity> faces = faceService.allOf(human);
+            final List<float[]> histograms = faces.parallelStream()
+                    .map(this::faceToHistogram)
+                    .collect(Collectors.toList());
+
+            final BitSet prototypes = prototypes(histograms);
+            final List<FaceEntity> removed = new ArrayList<>();
+            for (int i = 0; i < faces.size(); i++) {
+                final float[] histogram = histograms.get(i);
+                if (histogram == null) {
+                    failed++;
+                    continue;
+                }
+
+                before++;
+                if (sample.size() < SAMPLE) {
+                    sample.add(histogram, i);
+                }
+                if (prototypes.get(i)) {
+                    after++;
+                    if (probes.size() < PROBES) {
+                        probes.add(histogram);
+                    }
+                } else {
+                    removed.add(faces.get(i));
+                }
+            }
+
+            if (!removed.isEmpty()) {
+                LOGGER.info("{}: {} of {} face(s) are near duplicates", human.getName(), removed.size(), faces.size());
+                if (!dryRun) {
+                    faceService.deleteAll(removed);
+                }
+            }
+            humans++;
+        }
+
+        final double faceTime = recognitionTime(sample, probes);
+        final double beforeTime = faceTime * before;
+        final double afterTime = faceTime * after;
+
+        LOGGER.info("Gallery compaction{} of {} human(s): {} -> {} face(s) ({}% less), {} undecodable, "
+                        + "recognition {} -> {} ms, took: {}",
+                dryRun ? " dry run" : "", humans, before, after, before == 0 ? 0 : 100 * (before - after) / before,
+                failed,
+                String.format("%.2f", beforeTime), String.format("%.2f", afterTime),
+                System.currentTimeMillis() - start);
+
+        if (!dryRun && after < before) {
+            recognizer.retrain();
+        }
+    }
+
+    /**
+     * Selects faces which represent all faces of a human.
+     *
+     * @param histograms histograms of the faces ordered by id, null for faces which can't be decoded.
+     * @return positions of the selected faces.
+     */
+    private BitSet prototypes(final List<float[]> histograms) {
+        final List<Integer> prototypes = new ArrayList<>();
+        final List<Integer> members = new ArrayList<>();
+
+        for (int i = 0; i < histograms.size(); i++) {
+            final float[] histogram = histograms.get(i);
+            if (histogram == null) {
+                continue;
+            }
+
+            int nearest = -1;
+            double nearestDistance = duplicateDistance;
+            for (int p = 0; p < prototypes.size(); p++) {
+                final double distance = distance(histogram, histograms.get(prototypes.get(p)), nearestDistance);
+                if (distance <= nearestDistance) {
+                    nearest = p;
+                    nearestDistance = distance;
+                }
+            }
+
+            if (nearest < 0) {
+                prototypes.add(i);
+                members.add(1);
+            } else {
+                members.set(nearest, members.get(nearest) + 1);
+            }
+        }
+
+        if (prototypes.size() <= maxPrototypes) {
+            return positions(prototypes);
+        }
+
+        // the largest cluster is kept first, then the cluster farthest from all kept ones, and so on.
+        final double[] keptDistance = new double[prototypes.size()];
+        Arrays.fill(keptDistance, Double.MAX_VALUE);
+
+        int next = members.indexOf(members.stream().max(Integer::compare).orElse(0));
+        final List<Integer> kept = new ArrayList<>(maxPrototypes);
+        while (kept.size() < maxPrototypes) {
+            final float[] added = histograms.get(prototypes.get(next));
+            kept.add(prototypes.get(next));
+            keptDistance[next] = -1;
+
+            int farthest = -1;
+            for (int p = 0; p < prototypes.size(); p++) {
+                if (keptDistance[p] < 0) {
+                    continue;
+                }
+                keptDistance[p] = Math.min(keptDistance[p],
+                        distance(histograms.get(prototypes.get(p)), added, Double.MAX_VALUE));
+                if (farthest < 0 || keptDistance[p] > keptDistance[farthest]) {
+                    farthest = p;
+                }
+            }
+            next = farthest;
+        }
+        return positions(kept);
+    }
+
+    private static BitSet positions(final List<Integer> list) {
+        final BitSet positions = new BitSet();
+        list.forEach(positions::set);
+        return positions;
+    }
+
+    private static double distance(final float[] first, final float[] second, final double bound) {
+        return ChiSquare.distance(first, 0, second, 0, first.length, bound);
+    }
+
+    /**
+     * Measures mean time of comparing a probe with a single face.
+     *
+     * @return time in milliseconds.
+     */
+    private static double recognitionTime(final FaceIndex index, final List<float[]> probes) {
+        if (index.size() == 0 || probes.isEmpty()) {
+            return 0;
+        }
+
+        // the first pass warms up the scan.
+        probes.forEach(probe -> index.search(probe, 1));
+
+        final long start = System.nanoTime();
+        probes.forEach(probe -> index.search(probe, 1));
+        return (System.nanoTime() - start) / 1e6 / probes.size() / index.size();
+    }
+
+    /**
+     * Converts face content to its histogram.
+     *
+     * @param face face.
+     * @return histogram or null if content can't be decoded.
+     */
+    private float[] faceToHistogram(final FaceEntity face) {
+        try {
+            final Mat mat = FaceContent.decode(face);
+            final float[] histogram = LbphHistogram.extract(mat);
+            mat.release();
+            return histogram;
+        } catch (final Exception e) {
+            LOGGER.error(e.getLocalizedMessage(), e);
+            return null;
+        }
+    }
+}
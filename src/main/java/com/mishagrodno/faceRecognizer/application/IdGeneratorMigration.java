@@ -0,0 +1,70 @@
+package com.mishagrodno.faceRecognizer.application;
+
+import com.mishagrodno.faceRecognizer.db.entity.BaseEntity;
+import com.mishagrodno.faceRecognizer.db.file.GalleryFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * The job which moves the id generator past ids of saved entities.
+ * Entities used to get auto increment ids, the generator table starts from scratch and would hand them out again.
+ * Runs on every startup before anything is saved, does nothing once the generator is ahead.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@Component
+@Profile("!" + GalleryFile.PROFILE)
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class IdGeneratorMigration implements ApplicationRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdGeneratorMigration.class);
+
+    private static final String GENERATOR = "entity";
+
+    private static final String[] TABLES = {"face_entity", "human_entity"};
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public IdGeneratorMigration(final JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void run(final ApplicationArguments args) {
+        long maxId = 0;
+        for (final String table : TABLES) {
+            final Long tableMaxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table,
+                    Long.class);
+            maxId = Math.max(maxId, tableMaxId == null ? 0 : tableMaxId);
+        }
+
+        // the generator hands out a whole allocation below the stored value, so it is kept an allocation ahead.
+        final long next = maxId + BaseEntity.ID_ALLOCATION_SIZE + 1;
+
+        final int updated = jdbcTemplate.update("UPDATE id_generator SET next_val = ? WHERE name = ? AND next_val < ?",
+                next, GENERATOR, next);
+        if (updated > 0) {
+            LOGGER.info("Id generator moved to {}", next);
+            return;
+        }
+
+        final Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM id_generator WHERE name = ?",
+                Integer.class, GENERATOR);
+        if (rows == null || rows == 0) {
+            jdbcTemplate.update("INSERT INTO id_generator (name, next_val) VALUES (?, ?)", GENERATOR, next);
+            LOGGER.info("Id generator started from {}", next);
+        }
+    }
+}
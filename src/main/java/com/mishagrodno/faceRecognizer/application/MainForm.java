@@ -15,13 +15,13 @@ public class MainForm {
     private JFrame mainFrame;
     private JPanel mainPanel;
     private JPanel panel;
-    private JLabel image;
+    private PreviewSurface preview;
     private JTextField textName;
     private JLabel labelName;
     private JButton saveButton;
     private JButton reloadButton;
 
-    public void create(final int height, final int width) {
+    public void create(final int height, final int width, final int previewFps) {
 
         mainFrame = new JFrame("Face Recognizing");
         mainFrame.setSize(width, height);
@@ -32,12 +32,12 @@ public class MainForm {
         constraints.fill = GridBagConstraints.HORIZONTAL;
         constraints.insets = new Insets(10, 10, 10, 10);
 
-        image = new JLabel();
+        preview = new PreviewSurface(width, height, previewFps);
         constraints.gridx = 0;
         constraints.gridy = 0;
         constraints.gridwidth = 4;
         constraints.gridheight = 4;
-        mainPanel.add(image, constraints);
+        mainPanel.add(preview, constraints);
 
         panel = new JPanel(new GridBagLayout());
 
@@ -87,8 +87,8 @@ public class MainForm {
         return panel;
     }
 
-    public JLabel getImage() {
-        return image;
+    public PreviewSurface getPreview() {
+        return preview;
     }
 
     public JTextField getTextName() {
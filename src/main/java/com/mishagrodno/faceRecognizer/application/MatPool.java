@@ -0,0 +1,185 @@
+package com.mishagrodno.faceRecognizer.application;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The pool of native images keyed by their size and type.
+ * Frames of the same source have the same size, so in the steady state every image is taken from the pool
+ * instead of being allocated. Pooled images keep their size and type, so they must only be written by
+ * operations which don't reallocate them. Images above the pool limit are released.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@Component
+public class MatPool {
+
+    /**
+     * Bytes of an element channel by depth, CV_8U to CV_16F.
+     */
+    private static final int[] DEPTH_BYTES = {1, 1, 2, 2, 4, 4, 8, 2};
+
+    private final Map<Long, Deque<Mat>> free = new ConcurrentHashMap<>();
+
+    private final AtomicLong liveBytes = new AtomicLong();
+
+    private final AtomicLong pooledBytes = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    @Value("${pool.max-bytes:268435456}")
+    private long maxPooledBytes;
+
+    @Autowired
+    public MatPool(final MeterRegistry registry) {
+        Gauge.builder("face.pool.live.bytes", liveBytes, AtomicLong::get)
+                .description("Bytes of native images allocated by the pool and not released, pooled or in use")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("face.pool.pooled.bytes", pooledBytes, AtomicLong::get)
+                .description("Bytes of native images waiting in the pool")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("face.pool.hits", hits, AtomicLong::get)
+                .description("Images taken from the pool")
+                .register(registry);
+        FunctionCounter.builder("face.pool.misses", misses, AtomicLong::get)
+                .description("Images allocated because the pool had none")
+                .register(registry);
+    }
+
+    /**
+     * Takes image from the pool or allocates a new one.
+     * Content of the image is undefined.
+     *
+     * @param rows rows.
+     * @param cols columns.
+     * @param type type.
+     * @return image.
+     */
+    public Mat acquire(final int rows, final int cols, final int type) {
+        final long bytes = bytes(rows, cols, type);
+
+        final Deque<Mat> images = free.get(key(rows, cols, type));
+        final Mat pooled = images == null ? null : images.pollFirst();
+        if (pooled != null) {
+            hits.incrementAndGet();
+            pooledBytes.addAndGet(-bytes);
+            return pooled;
+        }
+
+        misses.incrementAndGet();
+        liveBytes.addAndGet(bytes);
+        return new Mat(rows, cols, type);
+    }
+
+    /**
+     * Returns image taken from the pool.
+     *
+     * @param mat image.
+     */
+    public void release(final Mat mat) {
+        if (mat == null) {
+            return;
+        }
+
+        final long bytes = bytes(mat.rows(), mat.cols(), mat.type());
+        if (pooledBytes.addAndGet(bytes) > maxPooledBytes) {
+            pooledBytes.addAndGet(-bytes);
+            liveBytes.addAndGet(-bytes);
+            mat.release();
+            return;
+        }
+
+        free.computeIfAbsent(key(mat.rows(), mat.cols(), mat.type()), key -> new ConcurrentLinkedDeque<>())
+                .addFirst(mat);
+    }
+
+    /**
+     * Releases all pooled images.
+     */
+    @PreDestroy
+    public void clear() {
+        free.values().forEach(images -> {
+            Mat mat;
+            while ((mat = images.pollFirst()) != null) {
+                final long bytes = bytes(mat.rows(), mat.cols(), mat.type());
+                pooledBytes.addAndGet(-bytes);
+                liveBytes.addAndGet(-bytes);
+                mat.release();
+            }
+        });
+    }
+
+    /**
+     * Gets bytes of all images allocated by the pool and not released yet, pooled or in use.
+     *
+     * @return live bytes.
+     */
+    public long getLiveBytes() {
+        return liveBytes.get();
+    }
+
+    /**
+     * Gets bytes of images waiting in the pool.
+     *
+     * @return pooled bytes.
+     */
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    /**
+     * Gets count of images taken from the pool.
+     *
+     * @return hits.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets count of images allocated because the pool had none.
+     *
+     * @return misses.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Builds pool report.
+     *
+     * @return report.
+     */
+    public String report() {
+        final long currentHits = hits.get();
+        final long total = currentHits + misses.get();
+        return String.format("pool: %.1f MB live, %.1f MB pooled, hit rate %.1f%%",
+                liveBytes.get() / 1048576.0, pooledBytes.get() / 1048576.0,
+                total == 0 ? 0.0 : currentHits * 100.0 / total);
+    }
+
+    private static long key(final int rows, final int cols, final int type) {
+        return ((long) rows << 32) | ((long) cols << 12) | type;
+    }
+
+    private static long bytes(final int rows, final int cols, final int type) {
+        final int channels = (type >> 3) + 1;
+        return (long) rows * cols * channels * DEPTH_BYTES[type & 7];
+    }
+}
@@ -0,0 +1,154 @@
+package com.mishagrodno.faceRecognizer.application;
+
+import com.mishagrodno.faceRecognizer.application.index.FaceIndex;
+import com.mishagrodno.faceRecognizer.application.index.IndexSnapshot;
+import com.mishagrodno.faceRecognizer.db.service.GalleryVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * The local snapshot of the recognition model.
+ * The file holds the version of the gallery the model was trained on and its index, so on startup the model is
+ * read back instead of decoding every saved face, as long as the gallery still has the same version.
+ * A new snapshot is written next to the old one and then moved over it, so a crash never leaves a broken snapshot.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@Component
+public class ModelSnapshots {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ModelSnapshots.class);
+
+    private static final int MAGIC = 0x464d4f44;
+
+    private static final int FORMAT = 2;
+
+    /**
+     * Magic and format ints, then model version and four gallery version longs.
+     */
+    private static final int HEADER_BYTES = 2 * Integer.BYTES + 5 * Long.BYTES;
+
+    @Value("${recognizer.snapshot.file:}")
+    private String file;
+
+    /**
+     * Tells if snapshots are enabled.
+     *
+     * @return true if snapshot file is set.
+     */
+    public boolean isEnabled() {
+        return !file.trim().isEmpty();
+    }
+
+    /**
+     * Writes the model snapshot, one snapshot is written at a time.
+     *
+     * @param model model, its index must not be changed while written.
+     * @return true if the snapshot is written.
+     */
+    public synchronized boolean save(final RecognitionModel model) {
+        if (!isEnabled() || model.getIndex() == null) {
+            return false;
+        }
+
+        final long start = System.currentTimeMillis();
+        final Path target = Paths.get(file);
+        final Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (final FileChannel channel = FileChannel.open(temporary, CREATE, WRITE, TRUNCATE_EXISTING)) {
+                final GalleryVersion gallery = model.getGallery();
+                final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                        .putInt(MAGIC)
+                        .putInt(FORMAT)
+                        .putLong(model.getVersion())
+                        .putLong(gallery.getCount())
+                        .putLong(gallery.getLastFaceId())
+                        .putLong(gallery.getIdSum())
+                        .putLong(gallery.getChecksum());
+                header.flip();
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+
+                IndexSnapshot.write(model.getIndex(), channel);
+                channel.force(false);
+            }
+            Files.move(temporary, target, REPLACE_EXISTING, ATOMIC_MOVE);
+
+            LOGGER.info("Model {} with {} face(s) saved to {}, took: {}", model.getVersion(), model.size(), target,
+                    System.currentTimeMillis() - start);
+            return true;
+        } catch (final IOException | RuntimeException e) {
+            LOGGER.error("Can't save model snapshot to {}: {}", target, e.getLocalizedMessage(), e);
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (final IOException ignored) {
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Reads the model snapshot.
+     *
+     * @param dimensions expected count of vector dimensions.
+     * @param efSearch   candidates considered while searching a graph index.
+     * @return model or null if there is no usable snapshot.
+     */
+    public RecognitionModel load(final int dimensions, final int efSearch) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        final Path source = Paths.get(file);
+        if (!Files.isRegularFile(source)) {
+            LOGGER.info("No model snapshot at {}", source);
+            return null;
+        }
+
+        final long start = System.currentTimeMillis();
+        try (final FileChannel channel = FileChannel.open(source, READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    throw new IOException("Snapshot header is truncated");
+                }
+            }
+            header.flip();
+
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a model snapshot");
+            }
+            final int format = header.getInt();
+            if (format != FORMAT) {
+                throw new IOException("Unsupported snapshot format " + format);
+            }
+
+            final long version = header.getLong();
+            final GalleryVersion gallery = new GalleryVersion(header.getLong(), header.getLong(), header.getLong(),
+                    header.getLong());
+            final FaceIndex index = IndexSnapshot.read(channel, dimensions, efSearch);
+
+            LOGGER.info("Model {} with {} face(s) read from {}, took: {}", version, index.size(), source,
+                    System.currentTimeMillis() - start);
+            return new RecognitionModel(index, gallery, version);
+        } catch (final IOException | RuntimeException e) {
+            LOGGER.warn("Can't read model snapshot from {}: {}", source, e.getLocalizedMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.mishagrodno.faceRecognizer.application;
+
+import com.mishagrodno.faceRecognizer.application.detection.FaceDetector;
+import com.mishagrodno.faceRecognizer.application.pipeline.*;
+import com.mishagrodno.faceRecognizer.db.service.HumanService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacv.FrameGrabber;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * The factory of frame processing pipelines.
+ * All pipelines share the image pool, the preprocessor, the face detector and the recognizer.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@Component
+public class PipelineFactory {
+
+    /**
+     * Downscale factor of the processed image.
+     */
+    private static final double SCALE = 1.2;
+
+    private final FramePreprocessor preprocessor;
+
+    private final FaceDetector detector;
+
+    private final Detector cascades;
+
+    private final Recognizer recognizer;
+
+    private final HumanService humanService;
+
+    private final MatPool pool;
+
+    private final MeterRegistry registry;
+
+    @Value("${pipeline.queue.capacity:2}")
+    private int queueCapacity;
+
+    @Value("${pipeline.report.interval:10}")
+    private long reportInterval;
+
+    @Value("${tracking.enabled:true}")
+    private boolean trackingEnabled;
+
+    @Value("${tracking.tracker:MOSSE}")
+    private String trackerType;
+
+    @Value("${tracking.detection.interval:10}")
+    private int detectionInterval;
+
+    @Autowired
+    public PipelineFactory(final FramePreprocessor preprocessor, final FaceDetector detector, final Detector cascades,
+                           final Recognizer recognizer, final HumanService humanService, final MatPool pool,
+                           final MeterRegistry registry) {
+        this.preprocessor = preprocessor;
+        this.detector = detector;
+        this.cascades = cascades;
+        this.recognizer = recognizer;
+        this.humanService = humanService;
+        this.pool = pool;
+        this.registry = registry;
+    }
+
+    /**
+     * Creates pipeline which grabs, detects and recognizes faces and passes results to the output stage.
+     *
+     * @param name          pipeline name.
+     * @param grabber       started grabber.
+     * @param active        tells if capturing should go on.
+     * @param dropStale     drop stale frames when a stage falls behind, otherwise process every frame.
+     * @param tracking      follow faces between frames if tracking is enabled, false when frames are unrelated.
+     * @param saveRequested count of next detected faces which should be saved.
+     * @param faceSaver     saves face.
+     * @param output        last stage which consumes results.
+     * @return not started pipeline.
+     */
+    public FramePipeline create(final String name, final FrameGrabber grabber, final BooleanSupplier active,
+                                final boolean dropStale, final boolean tracking, final AtomicInteger saveRequested,
+                                final Consumer<Mat> faceSaver, final PipelineStage output) {
+        return new FramePipeline(name, stages(name, grabber, active, tracking, saveRequested, faceSaver, output),
+                queueCapacity, dropStale, reportInterval, pool, registry);
+    }
+
+    /**
+     * Creates scheduler which processes many streams on the shared workers.
+     *
+     * @param workers count of shared workers.
+     * @return not started scheduler.
+     */
+    public StreamScheduler createScheduler(final int workers) {
+        return new StreamScheduler(workers, queueCapacity, reportInterval, pool, registry);
+    }
+
+    /**
+     * Creates stages which grab, detect and recognize faces and pass results to the output stage.
+     *
+     * @param name          source name.
+     * @param grabber       started grabber.
+     * @param active        tells if capturing should go on.
+     * @param tracking      follow faces between frames if tracking is enabled, false when frames are unrelated.
+     * @param saveRequested count of next detected faces which should be saved.
+     * @param faceSaver     saves face.
+     * @param output        last stage which consumes results.
+     * @return stages in processing order.
+     */
+    public List<PipelineStage> stages(final String name, final FrameGrabber grabber, final BooleanSupplier active,
+                                      final boolean tracking, final AtomicInteger saveRequested,
+                                      final Consumer<Mat> faceSaver, final PipelineStage output) {
+
+        final FaceTracker tracker = tracking && trackingEnabled
+                ? new FaceTracker(trackerType, detectionInterval)
+                : null;
+
+        return Arrays.asList(
+                new CaptureStage(name, grabber, active),
+                new PreprocessStage(preprocessor, SCALE),
+                new DetectionStage(detector, tracker, SCALE, saveRequested, cascades.eyeWindow()),
+                new RecognitionStage(recognizer, humanService, saveRequested, faceSaver),
+                output
+        );
+    }
+}
@@ -0,0 +1,138 @@
+package com.mishagrodno.faceRecognizer.application;
+
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.javacpp.opencv_core.Mat;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.bytedeco.javacpp.opencv_core.CV_8UC3;
+
+/**
+ * The component which shows camera frames.
+ * Frames are copied straight into the pixels of preallocated images, which are rotated between the producer
+ * and the EDT, so the producer never waits for painting and painting never waits for the producer.
+ * The EDT repaints at display rate and only when a new frame is ready.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class PreviewSurface extends JComponent {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Latest complete frame, exchanged by the producer and the EDT.
+     */
+    private final AtomicReference<BufferedImage> ready = new AtomicReference<>();
+
+    private final AtomicBoolean fresh = new AtomicBoolean();
+
+    private final Timer timer;
+
+    /**
+     * Image being filled by the producer.
+     */
+    private BufferedImage back;
+
+    /**
+     * Image being painted by the EDT.
+     */
+    private BufferedImage front;
+
+    /**
+     * Creates surface.
+     *
+     * @param width  frame width.
+     * @param height frame height.
+     * @param fps    max repaint rate.
+     */
+    public PreviewSurface(final int width, final int height, final int fps) {
+        back = image(width, height);
+        front = image(width, height);
+        ready.set(image(width, height));
+
+        setPreferredSize(new Dimension(width, height));
+        setOpaque(true);
+
+        timer = new Timer(Math.max(1, 1000 / Math.max(1, fps)), e -> swap());
+        timer.setCoalesce(true);
+    }
+
+    /**
+     * Publishes frame, called by the producer thread.
+     *
+     * @param frame BGR frame.
+     */
+    public void update(final Mat frame) {
+        if (frame.type() != CV_8UC3) {
+            throw new IllegalArgumentException("Only BGR frames are supported");
+        }
+
+        if (back.getWidth() != frame.cols() || back.getHeight() != frame.rows()) {
+            back = image(frame.cols(), frame.rows());
+        }
+
+        final byte[] pixels = ((DataBufferByte) back.getRaster().getDataBuffer()).getData();
+        final BytePointer data = frame.data();
+        final int rowBytes = frame.cols() * 3;
+
+        if (frame.isContinuous()) {
+            data.position(0).get(pixels, 0, rowBytes * frame.rows());
+        } else {
+            final long step = frame.step();
+            for (int row = 0; row < frame.rows(); row++) {
+                data.position(row * step).get(pixels, row * rowBytes, rowBytes);
+            }
+        }
+
+        back = ready.getAndSet(back);
+        fresh.set(true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        timer.start();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeNotify() {
+        timer.stop();
+        super.removeNotify();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void paintComponent(final Graphics g) {
+        g.drawImage(front, 0, 0, null);
+    }
+
+    private void swap() {
+        if (!fresh.getAndSet(false)) {
+            return;
+        }
+
+        front = ready.getAndSet(front);
+        if (front.getWidth() != getPreferredSize().width || front.getHeight() != getPreferredSize().height) {
+            setPreferredSize(new Dimension(front.getWidth(), front.getHeight()));
+            revalidate();
+        }
+        repaint();
+    }
+
+    private static BufferedImage image(final int width, final int height) {
+        return new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+    }
+}
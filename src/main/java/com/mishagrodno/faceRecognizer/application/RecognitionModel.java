@@ -0,0 +1,76 @@
+package com.mishagrodno.faceRecognizer.application;
+
+import com.mishagrodno.faceRecognizer.application.index.FaceIndex;
+import com.mishagrodno.faceRecognizer.db.service.GalleryVersion;
+
+/**
+ * The immutable snapshot of the recognizer model.
+ * Snapshots are built by the training thread and published by the recognizer at once,
+ * so recognition always sees a complete model and never waits for training.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public final class RecognitionModel {
+
+    /**
+     * Model before the first training.
+     */
+    static final RecognitionModel EMPTY = new RecognitionModel(null, GalleryVersion.EMPTY, 0);
+
+    private final FaceIndex index;
+
+    private final GalleryVersion gallery;
+
+    private final long version;
+
+    RecognitionModel(final FaceIndex index, final GalleryVersion gallery, final long version) {
+        this.index = index;
+        this.gallery = gallery;
+        this.version = version;
+    }
+
+    /**
+     * Gets version, every published model has a greater version than the previous one.
+     *
+     * @return version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets id of the last face the model was trained on.
+     *
+     * @return face id.
+     */
+    public long getLastFaceId() {
+        return gallery.getLastFaceId();
+    }
+
+    /**
+     * Gets version of the saved faces the model was trained on, undecodable faces included.
+     *
+     * @return gallery version.
+     */
+    public GalleryVersion getGallery() {
+        return gallery;
+    }
+
+    /**
+     * Gets count of faces in the model.
+     *
+     * @return count of faces.
+     */
+    public int size() {
+        return index == null ? 0 : index.size();
+    }
+
+    /**
+     * Gets index of face histograms, it must not be changed.
+     *
+     * @return index or null if the model is empty.
+     */
+    FaceIndex getIndex() {
+        return index;
+    }
+}
@@ -1,105 +1,411 @@
-package com.mishagrodno.faceRecognizer.application;
-
-import com.google.common.collect.Iterables;
-import com.mishagrodno.faceRecognizer.db.entity.FaceEntity;
-import com.mishagrodno.faceRecognizer.db.service.FaceService;
-import org.bytedeco.javacpp.DoublePointer;
-import org.bytedeco.javacpp.IntPointer;
-import org.bytedeco.javacpp.opencv_core.Mat;
-import org.bytedeco.javacpp.opencv_core.MatVector;
-import org.bytedeco.javacpp.opencv_face.FaceRecognizer;
-import org.bytedeco.javacpp.opencv_face.LBPHFaceRecognizer;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Component;
-
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.nio.IntBuffer;
-import java.util.logging.Level;
-import java.util.stream.StreamSupport;
-
-import static org.bytedeco.javacpp.opencv_core.CV_32SC1;
-import static org.bytedeco.javacpp.opencv_imgcodecs.imwrite;
-
-/**
- * The Recognizer class.
- *
- * @author Gomanchuk Mikhail.
- */
-@Component
-public class Recognizer {
-
-    private final Logger LOGGER = LoggerFactory.getLogger(Recognizer.class);
-    private final FaceService faceService;
-    private FaceRecognizer faceRecognizer;
-
-    @Autowired
-    public Recognizer(final FaceService faceService) {
-        this.faceService = faceService;
-    }
-
-    /**
-     * Initialization of recognizer.
-     */
-    public void init() {
-        final Iterable<FaceEntity> faces = faceService.all();
-        if (Iterables.isEmpty(faces)) {
-            return;
-        }
-
-        final MatVector images = new MatVector();
-        final Mat labels = new Mat(Iterables.size(faces), 1, CV_32SC1);
-        final IntBuffer labelsBuffer = labels.createBuffer();
-
-        StreamSupport.stream(faces.spliterator(), false).forEach(face -> {
-            final Mat img = faceToMat(face);
-            images.push_back(img);
-            labelsBuffer.put(face.getOwner().getId().intValue());
-        });
-
-        faceRecognizer = LBPHFaceRecognizer.create();
-        faceRecognizer.train(images, labels);
-    }
-
-    /**
-     * Recognizes face.
-     *
-     * @param face face.
-     * @return recognized face.
-     */
-    public int recognize(final Mat face) {
-        final long start = System.currentTimeMillis();
-        if (faceRecognizer == null || faceRecognizer.empty()) {
-            return -1;
-        }
-
-        final IntPointer label = new IntPointer(1);
-        final DoublePointer confidence = new DoublePointer(0);
-        faceRecognizer.predict(face, label, confidence);
-
-        LOGGER.info("Took: {}", (System.currentTimeMillis() - start));
-
-        return confidence.get() > 60 ? -1 : label.get(0);
-    }
-
-    /**
-     * Converts Blob to mat.
-     *
-     * @param face face.
-     * @return Mat from blob.
-     */
-    private Mat faceToMat(final FaceEntity face) {
-        try {
-            final BufferedImage faceImage = ImageIO.read(face.getContent().getBinaryStream());
-            final Mat gray = new Mat(Utils.convertToIplImage(faceImage));
-            //final Mat gray = new Mat();
-            imwrite("face_from_db.jpg", gray);
-            return gray;
-        } catch (final Exception e) {
-            LOGGER.error(e.getLocalizedMessage(), e);
-            return null;
-        }
-    }
-}
+package com.mishagrodno.faceRecognizer.application;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mishagrodno.faceRecognizer.application.index.*;
+import com.mishagrodno.faceRecognizer.db.service.FaceService;
+import com.mishagrodno.faceRecognizer.db.service.FaceSample;
+import com.mishagrodno.faceRecognizer.db.service.GalleryVersion;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The Recognizer class.
+ * Faces are streamed from the database page by page, every page is decoded in parallel
+ * and added to the recognizer before the next one is loaded.
+ * Faces are compared by their LBPH histograms, which are kept in a nearest neighbour index instead of
+ * being compared one by one, so the nearest face and its confidence are the ones LBPH predict would report.
+ * Training runs on its own thread and builds a new {@link RecognitionModel}, recognition keeps using the previous
+ * model until the new one is published. Requests which arrive while training is running are served by one more run.
+ * Trained models are saved to a local snapshot. On startup the snapshot is used as long as the faces it was trained on
+ * are unchanged, only faces saved after it are loaded from the database.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@Component
+public class Recognizer {
+
+    /**
+     * Time given to the running training on shutdown.
+     */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final Logger LOGGER = LoggerFactory.getLogger(Recognizer.class);
+    private final FaceService faceService;
+    private final ModelSnapshots snapshots;
+    private final Timer recognizeTimer;
+    private final Timer trainingTimer;
+    private final Counter recognized;
+    private final Counter unknown;
+    private final ExecutorService trainer = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("recognizer-training").setDaemon(true).build());
+    private final Object trainingLock = new Object();
+    private volatile RecognitionModel model = RecognitionModel.EMPTY;
+
+    /**
+     * Requests waiting for the next training run, null if there are none.
+     */
+    private CompletableFuture<RecognitionModel> pending;
+
+    /**
+     * Is any waiting request a full retraining.
+     */
+    private boolean pendingFull;
+
+    private boolean training;
+
+    /**
+     * Version of the last saved model and the time it was saved.
+     */
+    private volatile long savedVersion;
+    private long savedAt;
+
+    @Value("${recognizer.page.size:500}")
+    private int pageSize;
+
+    @Value("${recognizer.index:exact}")
+    private String indexType;
+
+    @Value("${recognizer.graph.links:16}")
+    private int graphLinks;
+
+    @Value("${recognizer.graph.ef-construction:100}")
+    private int graphEfConstruction;
+
+    @Value("${recognizer.graph.ef-search:64}")
+    private int graphEfSearch;
+
+    @Value("${recognizer.snapshot.interval:300}")
+    private long snapshotInterval;
+
+    @Autowired
+    public Recognizer(final FaceService faceService, final ModelSnapshots snapshots, final MeterRegistry registry) {
+        this.faceService = faceService;
+        this.snapshots = snapshots;
+        this.recognizeTimer = Timer.builder("face.recognize")
+                .description("Time to find the nearest saved face")
+                .register(registry);
+        this.trainingTimer = Timer.builder("face.training")
+                .description("Time to load saved faces into the recognizer")
+                .register(registry);
+        this.recognized = Counter.builder("face.recognitions")
+                .description("Recognized faces")
+                .tag("result", "known")
+                .register(registry);
+        this.unknown = Counter.builder("face.recognitions")
+                .description("Recognized faces")
+                .tag("result", "unknown")
+                .register(registry);
+        Gauge.builder("face.model.version", this, recognizer -> recognizer.model.getVersion())
+                .description("Version of the published recognition model")
+                .register(registry);
+    }
+
+    @PreDestroy
+    void destroy() {
+        // a snapshot being written by the trainer is finished first, so it isn't written twice at once.
+        trainer.shutdown();
+        try {
+            if (!trainer.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                trainer.shutdownNow();
+            }
+        } catch (final InterruptedException e) {
+            trainer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        final RecognitionModel current = model;
+        if (current.getVersion() != savedVersion) {
+            snapshots.save(current);
+        }
+    }
+
+    /**
+     * Initialization of recognizer, restores the model from its snapshot and adds faces saved since it,
+     * or trains it from scratch on all saved faces if the snapshot doesn't match them. Waits for the new model.
+     */
+    public void init() {
+        final boolean restored = CompletableFuture.supplyAsync(this::restore, trainer).join();
+        if (restored) {
+            update().join();
+        } else {
+            retrain().join();
+        }
+    }
+
+    /**
+     * Requests training from scratch on all saved faces in the background.
+     *
+     * @return model published by the training which serves this request.
+     */
+    public CompletableFuture<RecognitionModel> retrain() {
+        return request(true);
+    }
+
+    /**
+     * Requests adding faces saved since the last training in the background.
+     * Falls back to training from scratch if the recognizer was never trained or the faces it was trained on
+     * have changed.
+     *
+     * @return model published by the training which serves this request.
+     */
+    public CompletableFuture<RecognitionModel> update() {
+        return request(false);
+    }
+
+    /**
+     * Gets the published model.
+     *
+     * @return model.
+     */
+    public RecognitionModel getModel() {
+        return model;
+    }
+
+    /**
+     * Recognizes face.
+     *
+     * @param face face.
+     * @return recognized face.
+     */
+    public int recognize(final Mat face) {
+        final long start = System.nanoTime();
+        final FaceIndex index = model.getIndex();
+        if (index == null || index.size() == 0) {
+            recognizeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            unknown.increment();
+            return -1;
+        }
+
+        final List<Neighbor> nearest = index.search(LbphHistogram.extract(face), 1);
+        recognizeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        if (nearest.isEmpty() || nearest.get(0).getDistance() > 60) {
+            unknown.increment();
+            return -1;
+        }
+        recognized.increment();
+        return nearest.get(0).getLabel();
+    }
+
+    private CompletableFuture<RecognitionModel> request(final boolean full) {
+        synchronized (trainingLock) {
+            if (pending == null) {
+                pending = new CompletableFuture<>();
+            }
+            pendingFull |= full;
+
+            final CompletableFuture<RecognitionModel> result = pending;
+            if (!training) {
+                training = true;
+                trainer.execute(this::train);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Serves waiting requests until there are none, all requests waiting for a run are served by it.
+     */
+    private void train() {
+        while (true) {
+            final CompletableFuture<RecognitionModel> requests;
+            final boolean full;
+            synchronized (trainingLock) {
+                if (pending == null) {
+                    training = false;
+                    return;
+                }
+                requests = pending;
+                full = pendingFull;
+                pending = null;
+                pendingFull = false;
+            }
+
+            try {
+                final RecognitionModel next = full ? rebuild() : extend();
+                requests.complete(next);
+                snapshot(next, full);
+            } catch (final RuntimeException e) {
+                LOGGER.error("Training failed: {}", e.getLocalizedMessage(), e);
+                requests.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Publishes the model of the snapshot if the faces it was trained on are unchanged.
+     *
+     * @return true if the snapshot is published.
+     */
+    private boolean restore() {
+        final RecognitionModel restored = snapshots.load(LbphHistogram.DIMENSIONS, graphEfSearch);
+        if (restored == null) {
+            return false;
+        }
+
+        if ((restored.getIndex() instanceof GraphIndex) != isGraph()) {
+            LOGGER.info("Model snapshot has another index type, training from scratch");
+            return false;
+        }
+
+        final GalleryVersion gallery = faceService.version(restored.getLastFaceId());
+        if (!gallery.equals(restored.getGallery())) {
+            LOGGER.info("Model snapshot was trained on {}, the database has {}, training from scratch",
+                    restored.getGallery(), gallery);
+            return false;
+        }
+
+        savedVersion = restored.getVersion();
+        savedAt = System.currentTimeMillis();
+        publish(restored);
+        return true;
+    }
+
+    /**
+     * Saves the model after training from scratch, models updated with new faces are saved at most once
+     * in the snapshot interval.
+     */
+    private void snapshot(final RecognitionModel next, final boolean full) {
+        final long now = System.currentTimeMillis();
+        if (next.getVersion() == savedVersion
+                || !full && now - savedAt < TimeUnit.SECONDS.toMillis(snapshotInterval)) {
+            return;
+        }
+
+        if (snapshots.save(next)) {
+            savedVersion = next.getVersion();
+        }
+        savedAt = now;
+    }
+
+    private RecognitionModel rebuild() {
+        final RecognitionModel current = model;
+        final FaceIndex index = createIndex();
+        final GalleryVersion gallery = load(index, GalleryVersion.EMPTY);
+        if (gallery.getLastFaceId() == 0 && current.size() == 0) {
+            return current;
+        }
+        // when all faces are deleted, the empty model replaces the one which still knows them.
+        return publish(new RecognitionModel(index, gallery, current.getVersion() + 1));
+    }
+
+    private RecognitionModel extend() {
+        final RecognitionModel current = model;
+        if (current.size() == 0) {
+            return rebuild();
+        }
+
+        // ids are allocated by every node in pools, so a face saved by another node may have an id below
+        // the last known one, the same happens when a known face is deleted or given to another human.
+        final GalleryVersion known = faceService.version(current.getLastFaceId());
+        if (!known.equals(current.getGallery())) {
+            LOGGER.info("Model {} was trained on {}, the database has {}, training from scratch",
+                    current.getVersion(), current.getGallery(), known);
+            return rebuild();
+        }
+
+        // the published index is searched concurrently, so new faces are added to its copy.
+        final FaceIndex index = current.getIndex().copy();
+        final GalleryVersion gallery = load(index, current.getGallery());
+        if (gallery.getLastFaceId() == current.getLastFaceId()) {
+            return current;
+        }
+        return publish(new RecognitionModel(index, gallery, current.getVersion() + 1));
+    }
+
+    private RecognitionModel publish(final RecognitionModel next) {
+        model = next;
+        LOGGER.info("Model {} published with {} face(s)", next.getVersion(), next.size());
+        return next;
+    }
+
+    /**
+     * Loads faces saved after the last face already known to the index into it.
+     *
+     * @param recognizer index.
+     * @param known      version of the faces already known to the index.
+     * @return version of the faces known to the index with the loaded ones.
+     */
+    private GalleryVersion load(final FaceIndex recognizer, final GalleryVersion known) {
+        final long start = System.currentTimeMillis();
+        long decodeTime = 0;
+        long trainTime = 0;
+        int pages = 0;
+        int loaded = 0;
+
+        GalleryVersion gallery = known;
+
+        List<FaceSample> page;
+        while (!(page = faceService.samplesAfter(gallery.getLastFaceId(), pageSize)).isEmpty()) {
+            pages++;
+
+            final long decodeStart = System.currentTimeMillis();
+            final List<float[]> histograms = page.parallelStream()
+                    .map(this::faceToHistogram)
+                    .collect(Collectors.toList());
+            decodeTime += System.currentTimeMillis() - decodeStart;
+
+            final long trainStart = System.currentTimeMillis();
+            for (int i = 0; i < page.size(); i++) {
+                gallery = gallery.plus(page.get(i).getId(), page.get(i).getOwnerId());
+                if (histograms.get(i) != null) {
+                    recognizer.add(histograms.get(i), (int) page.get(i).getOwnerId());
+                    loaded++;
+                }
+            }
+            trainTime += System.currentTimeMillis() - trainStart;
+        }
+
+        final long took = System.currentTimeMillis() - start;
+        trainingTimer.record(took, TimeUnit.MILLISECONDS);
+        LOGGER.info("{} face(s) loaded in {} page(s), decode: {}, train: {}, took: {}", loaded, pages,
+                decodeTime, trainTime, took);
+
+        return gallery;
+    }
+
+    private boolean isGraph() {
+        return "graph".equalsIgnoreCase(indexType);
+    }
+
+    private FaceIndex createIndex() {
+        if (isGraph()) {
+            return new GraphIndex(LbphHistogram.DIMENSIONS, graphLinks, graphEfConstruction, graphEfSearch);
+        }
+        return new ExactIndex(LbphHistogram.DIMENSIONS);
+    }
+
+    /**
+     * Converts face content to its histogram.
+     *
+     * @param face face sample.
+     * @return histogram or null if content can't be decoded.
+     */
+    private float[] faceToHistogram(final FaceSample face) {
+        try {
+            final Mat mat = FaceContent.decode(face);
+            final float[] histogram = LbphHistogram.extract(mat);
+            mat.release();
+            return histogram;
+        } catch (final Exception e) {
+            LOGGER.error(e.getLocalizedMessage(), e);
+            return null;
+        }
+    }
+}
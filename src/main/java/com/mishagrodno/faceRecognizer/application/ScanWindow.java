@@ -0,0 +1,217 @@
+package com.mishagrodno.faceRecognizer.application;
+
+import org.bytedeco.javacpp.opencv_core.Rect;
+import org.bytedeco.javacpp.opencv_core.Size;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The parameters of the multi-scale detection for a single classifier.
+ * With calibration enabled, the window of object sizes is learned from recent detections,
+ * so the classifier doesn't scan pyramid levels where objects never appear.
+ * A full scan still runs periodically and after several empty calibrated scans.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class ScanWindow {
+
+    /**
+     * Count of recent detections the window is learned from.
+     */
+    private static final int SAMPLES = 200;
+
+    /**
+     * Count of detections needed before the window is used.
+     */
+    private static final int MIN_SAMPLES = 30;
+
+    /**
+     * Margin added around the learned sizes.
+     */
+    private static final double MARGIN = 0.2;
+
+    /**
+     * Count of empty calibrated scans after which full scan runs.
+     */
+    private static final int MAX_MISSES = 3;
+
+    private final double scaleFactor;
+
+    private final int minNeighbors;
+
+    private final int minSize;
+
+    private final int maxSize;
+
+    private final boolean calibration;
+
+    private final int fullScanInterval;
+
+    private final int[] widths = new int[SAMPLES];
+
+    private final int[] heights = new int[SAMPLES];
+
+    private int samples;
+
+    private int next;
+
+    private int scans;
+
+    private int misses;
+
+    private Size learnedMin;
+
+    private Size learnedMax;
+
+    /**
+     * Creates scan window.
+     *
+     * @param scaleFactor      scale factor between pyramid levels.
+     * @param minNeighbors     min neighbors of a detection.
+     * @param minSize          min object size, 0 for no limit.
+     * @param maxSize          max object size, 0 for no limit.
+     * @param calibration      learn object sizes from recent detections.
+     * @param fullScanInterval count of scans between full scans when calibrated.
+     */
+    public ScanWindow(final double scaleFactor, final int minNeighbors, final int minSize, final int maxSize,
+                      final boolean calibration, final int fullScanInterval) {
+        this.scaleFactor = scaleFactor;
+        this.minNeighbors = minNeighbors;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.calibration = calibration;
+        this.fullScanInterval = fullScanInterval;
+    }
+
+    /**
+     * Gets scale factor.
+     *
+     * @return scale factor.
+     */
+    public double getScaleFactor() {
+        return scaleFactor;
+    }
+
+    /**
+     * Gets min neighbors.
+     *
+     * @return min neighbors.
+     */
+    public int getMinNeighbors() {
+        return minNeighbors;
+    }
+
+    /**
+     * Chooses object sizes for the next scan.
+     *
+     * @param imageSize size of the scanned image.
+     * @return scan, calibrated if the window is learned and no full scan is due.
+     */
+    public synchronized Scan next(final Size imageSize) {
+        final int maxWidth = maxSize > 0 ? Math.min(maxSize, imageSize.width()) : imageSize.width();
+        final int maxHeight = maxSize > 0 ? Math.min(maxSize, imageSize.height()) : imageSize.height();
+
+        scans++;
+        final boolean fullScan = !calibration || learnedMin == null || misses >= MAX_MISSES
+                || scans % fullScanInterval == 0;
+        if (fullScan) {
+            return new Scan(new Size(minSize, minSize), new Size(maxWidth, maxHeight), true);
+        }
+
+        return new Scan(
+                new Size(Math.max(minSize, learnedMin.width()), Math.max(minSize, learnedMin.height())),
+                new Size(Math.min(maxWidth, learnedMax.width()), Math.min(maxHeight, learnedMax.height())),
+                false);
+    }
+
+    /**
+     * Records detected objects.
+     *
+     * @param scan    scan the objects were detected with.
+     * @param objects detected objects.
+     */
+    public synchronized void record(final Scan scan, final List<Rect> objects) {
+        if (!calibration) {
+            return;
+        }
+
+        if (scan.isFull()) {
+            misses = 0;
+        } else if (objects.isEmpty()) {
+            misses++;
+        } else {
+            misses = 0;
+        }
+
+        for (final Rect object : objects) {
+            widths[next] = object.width();
+            heights[next] = object.height();
+            next = (next + 1) % SAMPLES;
+            samples = Math.min(samples + 1, SAMPLES);
+        }
+
+        if (samples >= MIN_SAMPLES && !objects.isEmpty()) {
+            learn();
+        }
+    }
+
+    private void learn() {
+        final int[] sortedWidths = Arrays.copyOf(widths, samples);
+        final int[] sortedHeights = Arrays.copyOf(heights, samples);
+        Arrays.sort(sortedWidths);
+        Arrays.sort(sortedHeights);
+
+        final int low = samples / 20;
+        final int high = samples - 1 - samples / 20;
+
+        learnedMin = new Size((int) (sortedWidths[low] * (1 - MARGIN)), (int) (sortedHeights[low] * (1 - MARGIN)));
+        learnedMax = new Size((int) Math.ceil(sortedWidths[high] * (1 + MARGIN)),
+                (int) Math.ceil(sortedHeights[high] * (1 + MARGIN)));
+    }
+
+    /**
+     * Object sizes of a single scan.
+     */
+    public static class Scan {
+
+        private final Size min;
+
+        private final Size max;
+
+        private final boolean full;
+
+        private Scan(final Size min, final Size max, final boolean full) {
+            this.min = min;
+            this.max = max;
+            this.full = full;
+        }
+
+        /**
+         * Gets min object size.
+         *
+         * @return min size.
+         */
+        public Size getMin() {
+            return min;
+        }
+
+        /**
+         * Gets max object size.
+         *
+         * @return max size.
+         */
+        public Size getMax() {
+            return max;
+        }
+
+        /**
+         * Is the whole size range scanned.
+         *
+         * @return true if full scan.
+         */
+        public boolean isFull() {
+            return full;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.mishagrodno.faceRecognizer.application;
+
+import com.mishagrodno.faceRecognizer.db.file.GalleryFile;
+import com.mishagrodno.faceRecognizer.db.service.HumanService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+
+/**
+ * The job which brings databases created by older versions to the current schema.
+ * Faces of a human used to be kept in a join table besides the owner column of the faces, the table is dropped.
+ * Names of humans weren't unique, faces of humans with the same name are given to the first of them and
+ * the others are deleted, so the unique name index can be created. Indexes the schema update couldn't create
+ * are created here. Runs on every startup, does nothing once the schema is current.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@Component
+@Profile("!" + GalleryFile.PROFILE)
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class SchemaMigration implements ApplicationRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SchemaMigration.class);
+
+    private static final String JOIN_TABLE = "human_entity_faces";
+
+    /**
+     * Humans with the same name as a human with a lesser id.
+     */
+    private static final String DUPLICATES = "SELECT h.id FROM human_entity h "
+            + "JOIN human_entity k ON k.name = h.name AND k.id < h.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final HumanService humanService;
+
+    @Autowired
+    public SchemaMigration(final JdbcTemplate jdbcTemplate, final HumanService humanService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.humanService = humanService;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void run(final ApplicationArguments args) {
+        if (tableExists(JOIN_TABLE)) {
+            jdbcTemplate.execute("DROP TABLE " + JOIN_TABLE);
+            LOGGER.info("Join table {} dropped, faces are found by their owner", JOIN_TABLE);
+        }
+
+        mergeDuplicates();
+
+        createIndex("human_entity", "name", "idx_human_name", true);
+        createIndex("face_entity", "owner_id", "idx_face_owner", false);
+    }
+
+    private void mergeDuplicates() {
+        final Integer duplicates = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (" + DUPLICATES + ") d",
+                Integer.class);
+        if (duplicates == null || duplicates == 0) {
+            return;
+        }
+
+        final int moved = jdbcTemplate.update("UPDATE face_entity SET owner_id = ("
+                + "SELECT MIN(k.id) FROM human_entity h JOIN human_entity k ON k.name = h.name "
+                + "WHERE h.id = face_entity.owner_id) "
+                + "WHERE owner_id IN (" + DUPLICATES + ")");
+        // the subquery is wrapped, so it is read before humans are deleted.
+        final int deleted = jdbcTemplate.update("DELETE FROM human_entity WHERE id IN ("
+                + "SELECT id FROM (" + DUPLICATES + ") d)");
+
+        LOGGER.info("{} human(s) with duplicate names merged, {} face(s) moved", deleted, moved);
+
+        // humans were cached on startup together with the deleted duplicates.
+        humanService.refresh();
+    }
+
+    /**
+     * Creates index unless the table already has an index on the column.
+     */
+    private void createIndex(final String table, final String column, final String name, final boolean unique) {
+        if (indexExists(table, column, unique)) {
+            return;
+        }
+
+        jdbcTemplate.execute("CREATE " + (unique ? "UNIQUE " : "") + "INDEX " + name
+                + " ON " + table + " (" + column + ")");
+        LOGGER.info("Index {} created on {}({})", name, table, column);
+    }
+
+    private boolean tableExists(final String table) {
+        final Boolean exists = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            try (final ResultSet tables = connection.getMetaData()
+                    .getTables(connection.getCatalog(), null, table, null)) {
+                return tables.next();
+            }
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+
+    /**
+     * Tells if an index starts with the column.
+     */
+    private boolean indexExists(final String table, final String column, final boolean unique) {
+        final Boolean exists = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            final DatabaseMetaData metaData = connection.getMetaData();
+            try (final ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), null, table, unique,
+                    false)) {
+                while (indexes.next()) {
+                    if (indexes.getShort("ORDINAL_POSITION") == 1
+                            && column.equalsIgnoreCase(indexes.getString("COLUMN_NAME"))) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+}
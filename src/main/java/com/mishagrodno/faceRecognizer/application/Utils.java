@@ -87,6 +87,9 @@ public class Utils {
 
         opencv_imgproc.warpAffine(image, dst, rotationMatrix, new Size((int) rotatedRect.width(), (int) rotatedRect.height()));
 
+        indexer.release();
+        rotationMatrix.release();
+
         return dst;
     }
 
@@ -0,0 +1,130 @@
+package com.mishagrodno.faceRecognizer.application.batch;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mishagrodno.faceRecognizer.application.PipelineFactory;
+import com.mishagrodno.faceRecognizer.application.Recognizer;
+import com.mishagrodno.faceRecognizer.application.pipeline.FramePipeline;
+import com.mishagrodno.faceRecognizer.application.pipeline.ResultWriterStage;
+import com.mishagrodno.faceRecognizer.application.stream.FrameSources;
+import org.bytedeco.javacv.FrameGrabber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The headless processor of video files and image directories.
+ * Every input runs through its own pipeline without dropping frames, results of all inputs are written
+ * to a single JSON lines file.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@Component
+public class BatchProcessor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchProcessor.class);
+
+    private final PipelineFactory pipelineFactory;
+
+    private final Recognizer recognizer;
+
+    @Value("${batch.inputs:}")
+    private String[] inputs;
+
+    @Value("${batch.output:results.jsonl}")
+    private String output;
+
+    @Value("${batch.parallelism:2}")
+    private int parallelism;
+
+    @Autowired
+    public BatchProcessor(final PipelineFactory pipelineFactory, final Recognizer recognizer) {
+        this.pipelineFactory = pipelineFactory;
+        this.recognizer = recognizer;
+    }
+
+    /**
+     * Processes all configured inputs.
+     *
+     * @return true if all inputs were processed.
+     */
+    public boolean run() {
+        recognizer.init();
+
+        final long start = System.currentTimeMillis();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism),
+                new ThreadFactoryBuilder().setNameFormat("batch-%d").build());
+
+        boolean succeeded = true;
+        try (Writer writer = Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8)) {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (final String input : inputs) {
+                if (!input.trim().isEmpty()) {
+                    futures.add(executor.submit(() -> {
+                        process(input.trim(), writer);
+                        return null;
+                    }));
+                }
+            }
+
+            for (final Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (final ExecutionException e) {
+                    succeeded = false;
+                    LOGGER.error("Batch input failed: {}", e.getCause().getLocalizedMessage(), e.getCause());
+                }
+            }
+        } catch (final IOException e) {
+            succeeded = false;
+            LOGGER.error("Can't write {}: {}", output, e.getLocalizedMessage(), e);
+        } catch (final InterruptedException e) {
+            succeeded = false;
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        LOGGER.info("Batch of {} inputs finished in {} ms, results: {}", inputs.length,
+                System.currentTimeMillis() - start, output);
+        return succeeded;
+    }
+
+    private void process(final String input, final Writer writer) throws Exception {
+        final File file = new File(input);
+        final FrameGrabber grabber = FrameSources.open(input);
+
+        final long start = System.currentTimeMillis();
+        grabber.start();
+        try {
+            // images of a directory are unrelated, faces are only followed through videos.
+            final boolean tracking = !(grabber instanceof ImageDirectoryGrabber);
+            final FramePipeline pipeline = pipelineFactory.create(file.getName(), grabber, () -> true, false,
+                    tracking, new AtomicInteger(), face -> {
+                    }, new ResultWriterStage(writer));
+
+            pipeline.start();
+            pipeline.awaitTermination();
+        } finally {
+            grabber.stop();
+            grabber.release();
+        }
+
+        LOGGER.info("Input {} processed in {} ms", input, System.currentTimeMillis() - start);
+    }
+}
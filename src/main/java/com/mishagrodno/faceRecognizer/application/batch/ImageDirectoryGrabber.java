@@ -0,0 +1,128 @@
+package com.mishagrodno.faceRecognizer.application.batch;
+
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.FrameGrabber;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.bytedeco.javacpp.opencv_imgcodecs.imread;
+
+/**
+ * The grabber which reads images of a directory in name order, one image per frame.
+ * Files which can't be decoded are skipped.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class ImageDirectoryGrabber extends FrameGrabber {
+
+    private static final String[] EXTENSIONS = {".jpg", ".jpeg", ".png", ".bmp", ".tif", ".tiff"};
+
+    private final File directory;
+
+    private final OpenCVFrameConverter.ToMat toMat = new OpenCVFrameConverter.ToMat();
+
+    private Iterator<Path> files;
+
+    private Mat current;
+
+    /**
+     * Creates grabber.
+     *
+     * @param directory directory with images.
+     */
+    public ImageDirectoryGrabber(final File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void start() throws Exception {
+        try (Stream<Path> paths = Files.list(directory.toPath())) {
+            final List<Path> images = paths
+                    .filter(Files::isRegularFile)
+                    .filter(ImageDirectoryGrabber::isImage)
+                    .sorted()
+                    .collect(Collectors.toList());
+            files = images.iterator();
+            frameNumber = 0;
+        } catch (final IOException e) {
+            throw new Exception("Can't list " + directory, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void stop() {
+        files = null;
+        releaseCurrent();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void trigger() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Frame grab() {
+        releaseCurrent();
+
+        while (files != null && files.hasNext()) {
+            final Mat image = imread(files.next().toString());
+            if (image.empty()) {
+                image.release();
+                continue;
+            }
+
+            current = image;
+            frameNumber++;
+            imageWidth = image.cols();
+            imageHeight = image.rows();
+            return toMat.convert(image);
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void release() {
+        stop();
+    }
+
+    private void releaseCurrent() {
+        if (current != null) {
+            current.release();
+            current = null;
+        }
+    }
+
+    private static boolean isImage(final Path path) {
+        final String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        for (final String extension : EXTENSIONS) {
+            if (name.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
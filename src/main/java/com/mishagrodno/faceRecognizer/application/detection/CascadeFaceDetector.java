@@ -0,0 +1,237 @@
+package com.mishagrodno.faceRecognizer.application.detection;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mishagrodno.faceRecognizer.application.Detector;
+import com.mishagrodno.faceRecognizer.application.FaceAligner;
+import com.mishagrodno.faceRecognizer.application.FaceAligner.Transform;
+import com.mishagrodno.faceRecognizer.application.MatPool;
+import com.mishagrodno.faceRecognizer.application.Utils;
+import com.mishagrodno.faceRecognizer.application.detection.EyePairCandidates.Candidate;
+import com.mishagrodno.faceRecognizer.application.pipeline.FrameContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacpp.opencv_core.Rect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The detector which finds eyes and verifies faces between suitable pairs of them with cascades.
+ * Pairs are verified best first, a pair whose eyes or area are already taken by a face is skipped without
+ * running the cascade. Independent pairs are verified concurrently, every worker thread uses its own classifier.
+ * Every pair is verified on the canvas the {@link FaceAligner} warps its face onto, and the recognition image
+ * is warped by the same transform.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@Component
+@ConditionalOnProperty(name = "detection.backend", havingValue = "cascade", matchIfMissing = true)
+public class CascadeFaceDetector implements FaceDetector {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CascadeFaceDetector.class);
+
+    private final Detector detector;
+
+    private final FaceAligner aligner;
+
+    private final Timer eyesTimer;
+
+    private final Timer verifyTimer;
+
+    private final Counter eyesCounter;
+
+    private final Counter pairsCounter;
+
+    private final Counter skippedCounter;
+
+    private final Counter facesCounter;
+
+    @Value("${detection.workers:4}")
+    private int detectionWorkers;
+
+    @Value("${detection.pairs.min-size-ratio:0.5}")
+    private double minSizeRatio;
+
+    @Value("${detection.pairs.max-angle:45}")
+    private double maxAngle;
+
+    private EyePairCandidates candidateEngine;
+
+    private ExecutorService workers;
+
+    @Autowired
+    public CascadeFaceDetector(final Detector detector, final FaceAligner aligner, final MeterRegistry registry) {
+        this.detector = detector;
+        this.aligner = aligner;
+        this.eyesTimer = Timer.builder("face.detection.eyes")
+                .description("Time to find eyes on a frame")
+                .register(registry);
+        this.verifyTimer = Timer.builder("face.detection.verify")
+                .description("Time to verify a face between a pair of eyes")
+                .register(registry);
+        this.eyesCounter = Counter.builder("face.eyes")
+                .description("Detected eyes")
+                .register(registry);
+        this.pairsCounter = Counter.builder("face.eye.pairs")
+                .description("Pairs of eyes verified as face candidates")
+                .register(registry);
+        this.skippedCounter = Counter.builder("face.eye.pairs.skipped")
+                .description("Plausible pairs of eyes skipped because their eyes or area were taken by a face")
+                .register(registry);
+        this.facesCounter = Counter.builder("face.faces")
+                .description("Detected faces")
+                .tag("backend", "cascade")
+                .register(registry);
+    }
+
+    @PostConstruct
+    void init() {
+        candidateEngine = new EyePairCandidates(minSizeRatio, maxAngle);
+        workers = Executors.newFixedThreadPool(detectionWorkers,
+                new ThreadFactoryBuilder().setNameFormat("detection-%d").setDaemon(true).build());
+    }
+
+    @PreDestroy
+    void destroy() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<FaceDetection> detect(final FrameContext frame, final double scale) throws Exception {
+        final Mat resized = frame.getPrepared();
+
+        final long eyesStart = System.nanoTime();
+        final List<Rect> eyes = detector.detectEyes(resized, frame.getEyeWindow());
+        eyesTimer.record(System.nanoTime() - eyesStart, TimeUnit.NANOSECONDS);
+        eyesCounter.increment(eyes.size());
+
+        LOGGER.debug("{} eye(s) detected", eyes.size());
+
+        final List<Candidate> candidates = candidateEngine.rank(eyes);
+        final boolean[] used = new boolean[eyes.size()];
+        final List<FaceDetection> detections = new ArrayList<>();
+        final List<EyePair> wave = new ArrayList<>(detectionWorkers);
+
+        int next = 0;
+        int verified = 0;
+        try {
+            while (next < candidates.size()) {
+                // the best candidates which don't depend on each other are verified on the worker pool at once,
+                // a candidate sharing an eye or overlapping one of them waits for the next wave.
+                for (; next < candidates.size() && wave.size() < detectionWorkers; next++) {
+                    final Candidate candidate = candidates.get(next);
+                    if (used[candidate.getFirst()] || used[candidate.getSecond()]
+                            || detections.stream().anyMatch(face -> Utils.contains(face.getProcessed(),
+                            candidate.getSpan()))) {
+                        continue;
+                    }
+                    if (wave.stream().anyMatch(pair -> pair.conflicts(candidate))) {
+                        break;
+                    }
+                    wave.add(verify(frame, eyes, candidate));
+                }
+
+                // results are accepted in the rank order, so a better pair wins its eyes and its face area.
+                for (final EyePair pair : wave) {
+                    final List<Rect> faces = pair.faces.get();
+                    verified++;
+                    if (CollectionUtils.isEmpty(faces)) {
+                        continue;
+                    }
+
+                    final Rect processed = pair.transform.toImage(faces.get(0));
+                    final Rect face = new Rect((int) (processed.x() * scale), (int) (processed.y() * scale),
+                            (int) (processed.width() * scale), (int) (processed.height() * scale));
+                    used[pair.candidate.getFirst()] = true;
+                    used[pair.candidate.getSecond()] = true;
+
+                    if (detections.stream().noneMatch(detection -> Utils.contains(detection.getFace(), face))) {
+                        detections.add(new FaceDetection(face, processed, pair.transform.getAngle(),
+                                aligner.face(frame.getGray(), pair.transform, faces.get(0), frame)));
+                    }
+                }
+                wave.clear();
+            }
+        } finally {
+            // frame images are released after detection, no task may still be using them.
+            wave.forEach(pair -> pair.faces.cancel(false));
+            for (final EyePair pair : wave) {
+                try {
+                    pair.faces.get();
+                } catch (final Exception ignored) {
+                }
+            }
+        }
+
+        pairsCounter.increment(verified);
+        skippedCounter.increment(candidates.size() - verified);
+        facesCounter.increment(detections.size());
+        return detections;
+    }
+
+    /**
+     * Submits verification of the candidate to the worker pool.
+     */
+    private EyePair verify(final FrameContext frame, final List<Rect> eyes, final Candidate candidate) {
+        final Mat resized = frame.getPrepared();
+        final MatPool pool = frame.getPool();
+        final Transform transform = aligner.align(eyes.get(candidate.getFirst()), eyes.get(candidate.getSecond()));
+
+        return new EyePair(candidate, transform, workers.submit(() -> {
+            final long verifyStart = System.nanoTime();
+            // frame image is only read, so workers warp from the shared image instead of copying it.
+            final Mat canvas = aligner.canvas(resized, transform, pool);
+            try {
+                return detector.detectFaces(canvas);
+            } finally {
+                pool.release(canvas);
+                verifyTimer.record(System.nanoTime() - verifyStart, TimeUnit.NANOSECONDS);
+            }
+        }));
+    }
+
+    /**
+     * Pair of eyes being verified.
+     */
+    private static class EyePair {
+
+        private final Candidate candidate;
+
+        private final Transform transform;
+
+        private final Future<List<Rect>> faces;
+
+        private EyePair(final Candidate candidate, final Transform transform, final Future<List<Rect>> faces) {
+            this.candidate = candidate;
+            this.transform = transform;
+            this.faces = faces;
+        }
+
+        /**
+         * Tells if the other candidate shares an eye with this pair or its eyes overlap this pair.
+         */
+        private boolean conflicts(final Candidate other) {
+            return other.getFirst() == candidate.getFirst() || other.getFirst() == candidate.getSecond()
+                    || other.getSecond() == candidate.getFirst() || other.getSecond() == candidate.getSecond()
+                    || Utils.contains(candidate.getSpan(), other.getSpan());
+        }
+    }
+}
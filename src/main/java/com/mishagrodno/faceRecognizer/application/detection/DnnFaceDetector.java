@@ -0,0 +1,321 @@
+package com.mishagrodno.faceRecognizer.application.detection;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.mishagrodno.faceRecognizer.application.FaceAligner;
+import com.mishagrodno.faceRecognizer.application.pipeline.FrameContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bytedeco.javacpp.Loader;
+import org.bytedeco.javacpp.indexer.FloatIndexer;
+import org.bytedeco.javacpp.opencv_core.*;
+import org.bytedeco.javacpp.opencv_dnn.Net;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.bytedeco.javacpp.opencv_core.CV_32F;
+import static org.bytedeco.javacpp.opencv_dnn.blobFromImages;
+import static org.bytedeco.javacpp.opencv_dnn.readNetFromCaffe;
+
+/**
+ * The detector based on the Caffe SSD face model.
+ * Frames of all pipelines are collected into batches, every batch is detected by a single forward pass.
+ * Every worker thread has its own network, networks are loaded on startup, so a broken model fails it.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@Component
+@ConditionalOnProperty(name = "detection.backend", havingValue = "dnn")
+public class DnnFaceDetector implements FaceDetector {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DnnFaceDetector.class);
+
+    /**
+     * Input size of the model.
+     */
+    private static final Size INPUT_SIZE = new Size(300, 300);
+
+    /**
+     * Mean pixel of the model training set.
+     */
+    private static final Scalar MEAN = new Scalar(104.0, 177.0, 123.0, 0);
+
+    private static final long POLL_TIMEOUT_MS = 100;
+
+    private final BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+
+    private final FaceAligner aligner;
+
+    private final Counter facesCounter;
+
+    @Value("${detection.dnn.proto:deploy.prototxt}")
+    private String protoName;
+
+    @Value("${detection.dnn.model:caffe_300x300.caffemodel}")
+    private String modelName;
+
+    @Value("${detection.dnn.confidence:0.9}")
+    private double confidence;
+
+    @Value("${detection.dnn.batch-size:4}")
+    private int batchSize;
+
+    @Value("${detection.dnn.batch-wait:5}")
+    private long batchWait;
+
+    @Value("${detection.dnn.timeout:5000}")
+    private long timeout;
+
+    @Value("${detection.workers:4}")
+    private int detectionWorkers;
+
+    private String proto;
+
+    private String model;
+
+    private ExecutorService workers;
+
+    private volatile boolean running;
+
+    @Autowired
+    public DnnFaceDetector(final FaceAligner aligner, final MeterRegistry registry) {
+        this.aligner = aligner;
+        this.facesCounter = Counter.builder("face.faces")
+                .description("Detected faces")
+                .tag("backend", "dnn")
+                .register(registry);
+    }
+
+    @PostConstruct
+    void init() {
+        proto = extract(protoName, "deploy", ".prototxt");
+        model = extract(modelName, "caffe", ".caffemodel");
+
+        final List<Net> nets = new ArrayList<>(detectionWorkers);
+        try {
+            for (int i = 0; i < detectionWorkers; i++) {
+                nets.add(load());
+            }
+        } catch (final RuntimeException e) {
+            nets.forEach(Net::close);
+            throw e;
+        }
+
+        running = true;
+        workers = Executors.newFixedThreadPool(detectionWorkers,
+                new ThreadFactoryBuilder().setNameFormat("dnn-%d").setDaemon(true).build());
+        for (final Net net : nets) {
+            workers.execute(() -> work(net));
+        }
+    }
+
+    @PreDestroy
+    void destroy() {
+        running = false;
+        workers.shutdownNow();
+
+        Request request;
+        while ((request = requests.poll()) != null) {
+            request.faces.completeExceptionally(new CancellationException("Detector is stopped"));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<FaceDetection> detect(final FrameContext frame, final double scale) throws Exception {
+        final Request request = new Request(frame.getImage());
+        requests.add(request);
+
+        final List<Rect> faces;
+        try {
+            faces = request.faces.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException | TimeoutException e) {
+            // the frame may be released right after this method, so a worker must not be using its image.
+            if (!request.claimed.compareAndSet(false, true)) {
+                Uninterruptibles.getUninterruptibly(request.faces);
+            }
+            throw e;
+        } catch (final ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+
+        final Mat gray = frame.getGray();
+        final List<FaceDetection> detections = new ArrayList<>();
+        for (final Rect face : faces) {
+            final Rect processed = clip(new Rect((int) (face.x() / scale), (int) (face.y() / scale),
+                    (int) (face.width() / scale), (int) (face.height() / scale)), gray.cols(), gray.rows());
+            if (processed == null) {
+                continue;
+            }
+
+            detections.add(new FaceDetection(face, processed, 0, aligner.face(gray, processed, frame)));
+        }
+        facesCounter.increment(detections.size());
+        return detections;
+    }
+
+    private Net load() {
+        final Net net;
+        try {
+            net = readNetFromCaffe(proto, model);
+        } catch (final RuntimeException e) {
+            throw new IllegalStateException("Can't load detection model " + modelName, e);
+        }
+        if (net.empty()) {
+            net.close();
+            throw new IllegalStateException("Detection model " + modelName + " is empty");
+        }
+        return net;
+    }
+
+    private void work(final Net net) {
+        final List<Request> batch = new ArrayList<>(batchSize);
+
+        try {
+            while (running) {
+                final Request first = requests.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null || !first.claimed.compareAndSet(false, true)) {
+                    continue;
+                }
+                batch.add(first);
+
+                // frames of other pipelines arriving shortly after are detected in the same pass.
+                final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchWait);
+                while (batch.size() < batchSize) {
+                    final Request next = requests.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    if (next.claimed.compareAndSet(false, true)) {
+                        batch.add(next);
+                    }
+                }
+
+                try {
+                    forward(net, batch);
+                } catch (final RuntimeException e) {
+                    batch.forEach(request -> request.faces.completeExceptionally(e));
+                } finally {
+                    batch.clear();
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            batch.forEach(request -> request.faces.completeExceptionally(new CancellationException("Detector is stopped")));
+            net.close();
+        }
+    }
+
+    private void forward(final Net net, final List<Request> batch) {
+        final long start = System.currentTimeMillis();
+
+        final MatVector images = new MatVector(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            images.put(i, batch.get(i).image);
+        }
+
+        final Mat blob = blobFromImages(images, 1.0, INPUT_SIZE, MEAN, false, false, CV_32F);
+        images.close();
+
+        net.setInput(blob);
+        final Mat output = net.forward();
+        blob.release();
+
+        final List<List<Rect>> faces = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            faces.add(new ArrayList<>());
+        }
+
+        // output is 1 x 1 x N x 7: image, label, confidence, left, top, right, bottom.
+        final Mat detections = new Mat(output.size(2), output.size(3), CV_32F, output.ptr(0, 0));
+        final FloatIndexer indexer = detections.createIndexer();
+        for (int i = 0; i < detections.rows(); i++) {
+            final int image = (int) indexer.get(i, 0);
+            if (image < 0 || image >= batch.size() || indexer.get(i, 2) < confidence) {
+                continue;
+            }
+
+            final Mat source = batch.get(image).image;
+            final int left = (int) (indexer.get(i, 3) * source.cols());
+            final int top = (int) (indexer.get(i, 4) * source.rows());
+            final int right = (int) (indexer.get(i, 5) * source.cols());
+            final int bottom = (int) (indexer.get(i, 6) * source.rows());
+
+            final Rect face = clip(new Rect(left, top, right - left, bottom - top), source.cols(), source.rows());
+            if (face != null) {
+                faces.get(image).add(face);
+            }
+        }
+        indexer.release();
+        detections.release();
+        output.release();
+
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).faces.complete(faces.get(i));
+        }
+
+        LOGGER.debug("Batch of {} frame(s) detected in {} ms", batch.size(), System.currentTimeMillis() - start);
+    }
+
+    private static Rect clip(final Rect rect, final int width, final int height) {
+        final int x = Math.max(0, rect.x());
+        final int y = Math.max(0, rect.y());
+        final int right = Math.min(width, rect.x() + rect.width());
+        final int bottom = Math.min(height, rect.y() + rect.height());
+        return right - x < 8 || bottom - y < 8 ? null : new Rect(x, y, right - x, bottom - y);
+    }
+
+    private String extract(final String name, final String prefix, final String suffix) {
+        final File file = new File(name);
+        if (file.isFile()) {
+            return file.getAbsolutePath();
+        }
+
+        final URL url = getClass().getClassLoader().getResource(name);
+        if (url == null) {
+            throw new IllegalStateException("Detection model " + name + " is not found");
+        }
+
+        try {
+            return Loader.extractResource(url, null, prefix, suffix).getAbsolutePath();
+        } catch (final IOException e) {
+            throw new IllegalStateException("Can't extract detection model " + name, e);
+        }
+    }
+
+    /**
+     * Frame waiting for detection.
+     */
+    private static class Request {
+
+        private final Mat image;
+
+        /**
+         * Set by the worker which takes the request, or by the caller which gives it up.
+         */
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private final CompletableFuture<List<Rect>> faces = new CompletableFuture<>();
+
+        private Request(final Mat image) {
+            this.image = image;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.mishagrodno.faceRecognizer.application.detection;
+
+import org.bytedeco.javacpp.opencv_core.Rect;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The engine which pairs detected eyes into face candidates ranked by how plausible their geometry is.
+ * Eyes are put into a grid with cells as large as the longest possible pair, so only eyes of neighbouring cells
+ * are paired. Pairs with eyes of very different sizes, too steep or too far apart are rejected, the rest are
+ * ranked by size ratio, vertical offset, angle and spacing, the most plausible first.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class EyePairCandidates {
+
+    /**
+     * Max distance between eye centers in widths of the larger eye.
+     */
+    private static final double MAX_SPACING = 2.0;
+
+    /**
+     * Min distance between eye centers in widths of the larger eye, closer eyes are the same eye detected twice.
+     */
+    private static final double MIN_SPACING = 0.5;
+
+    /**
+     * Typical distance between eye centers in widths of the larger eye.
+     */
+    private static final double IDEAL_SPACING = 1.6;
+
+    private final double minSizeRatio;
+
+    private final double maxAngle;
+
+    /**
+     * Creates engine.
+     *
+     * @param minSizeRatio min ratio of the smaller eye width to the larger one.
+     * @param maxAngle     max angle of the line between eyes in degrees.
+     */
+    public EyePairCandidates(final double minSizeRatio, final double maxAngle) {
+        this.minSizeRatio = minSizeRatio;
+        this.maxAngle = Math.toRadians(maxAngle);
+    }
+
+    /**
+     * Pairs eyes.
+     *
+     * @param eyes detected eyes.
+     * @return plausible pairs, the most plausible first.
+     */
+    public List<Candidate> rank(final List<Rect> eyes) {
+        final int count = eyes.size();
+        final int[] x = new int[count];
+        final int[] y = new int[count];
+        final int[] width = new int[count];
+        final int[] height = new int[count];
+
+        int maxWidth = 0;
+        for (int i = 0; i < count; i++) {
+            final Rect eye = eyes.get(i);
+            x[i] = eye.x();
+            y[i] = eye.y();
+            width[i] = eye.width();
+            height[i] = eye.height();
+            maxWidth = Math.max(maxWidth, width[i]);
+        }
+
+        final List<Candidate> candidates = new ArrayList<>();
+        if (count < 2) {
+            return candidates;
+        }
+
+        // no pair is longer than a cell, so the partner of an eye is in its own or a neighbouring cell.
+        final int cell = (int) Math.ceil(MAX_SPACING * maxWidth) + 1;
+        final Map<Long, List<Integer>> grid = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            grid.computeIfAbsent(key(centerX(x, width, i) / cell, centerY(y, height, i) / cell),
+                    k -> new ArrayList<>()).add(i);
+        }
+
+        for (int i = 0; i < count; i++) {
+            final int cellX = centerX(x, width, i) / cell;
+            final int cellY = centerY(y, height, i) / cell;
+
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    final List<Integer> neighbours = grid.get(key(cellX + dx, cellY + dy));
+                    if (neighbours == null) {
+                        continue;
+                    }
+                    for (final int j : neighbours) {
+                        if (j > i) {
+                            final Candidate candidate = candidate(i, j, x, y, width, height);
+                            if (candidate != null) {
+                                candidates.add(candidate);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        candidates.sort((first, second) -> Double.compare(first.score, second.score));
+        return candidates;
+    }
+
+    /**
+     * Scores pair, lower is more plausible.
+     *
+     * @return candidate or null if the pair can't be a face.
+     */
+    private Candidate candidate(final int i, final int j, final int[] x, final int[] y, final int[] width,
+                                final int[] height) {
+        final int larger = Math.max(width[i], width[j]);
+        final double sizeRatio = Math.min(width[i], width[j]) / (double) larger;
+        if (sizeRatio < minSizeRatio) {
+            return null;
+        }
+
+        final int left = x[i] < x[j] ? i : j;
+        final int right = left == i ? j : i;
+        final int deltaX = centerX(x, width, right) - centerX(x, width, left);
+        final int deltaY = centerY(y, height, right) - centerY(y, height, left);
+
+        final long squaredDistance = (long) deltaX * deltaX + (long) deltaY * deltaY;
+        final double maxDistance = MAX_SPACING * larger;
+        final double minDistance = MIN_SPACING * larger;
+        if (squaredDistance > maxDistance * maxDistance || squaredDistance < minDistance * minDistance) {
+            return null;
+        }
+
+        final double angle = Math.atan((double) deltaY / deltaX);
+        if (Math.abs(angle) > maxAngle) {
+            return null;
+        }
+
+        final double meanWidth = (width[i] + width[j]) / 2.0;
+        final double spacing = Math.sqrt(squaredDistance) / larger;
+        final double score = (1 - sizeRatio)
+                + Math.abs(deltaY) / meanWidth
+                + Math.abs(angle) / maxAngle
+                + Math.abs(spacing - IDEAL_SPACING) / IDEAL_SPACING;
+
+        final int spanX = Math.min(x[i], x[j]);
+        final int spanY = Math.min(y[i], y[j]);
+        final Rect span = new Rect(spanX, spanY,
+                Math.max(x[i] + width[i], x[j] + width[j]) - spanX,
+                Math.max(y[i] + height[i], y[j] + height[j]) - spanY);
+
+        return new Candidate(i, j, angle, score, span);
+    }
+
+    private static int centerX(final int[] x, final int[] width, final int i) {
+        return x[i] + width[i] / 2;
+    }
+
+    private static int centerY(final int[] y, final int[] height, final int i) {
+        return y[i] + height[i] / 2;
+    }
+
+    private static long key(final int cellX, final int cellY) {
+        return ((long) cellX << 32) ^ (cellY & 0xffffffffL);
+    }
+
+    /**
+     * Pair of eyes which may be a face.
+     */
+    public static class Candidate {
+
+        private final int first;
+
+        private final int second;
+
+        private final double angle;
+
+        private final double score;
+
+        private final Rect span;
+
+        private Candidate(final int first, final int second, final double angle, final double score,
+                          final Rect span) {
+            this.first = first;
+            this.second = second;
+            this.angle = angle;
+            this.score = score;
+            this.span = span;
+        }
+
+        /**
+         * Gets position of the first eye.
+         *
+         * @return eye position in the detected eyes.
+         */
+        public int getFirst() {
+            return first;
+        }
+
+        /**
+         * Gets position of the second eye.
+         *
+         * @return eye position in the detected eyes.
+         */
+        public int getSecond() {
+            return second;
+        }
+
+        /**
+         * Gets face angle.
+         *
+         * @return angle in radians.
+         */
+        public double getAngle() {
+            return angle;
+        }
+
+        /**
+         * Gets plausibility score.
+         *
+         * @return score, lower is more plausible.
+         */
+        public double getScore() {
+            return score;
+        }
+
+        /**
+         * Gets area covered by both eyes, it lies inside the face.
+         *
+         * @return eye span.
+         */
+        public Rect getSpan() {
+            return span;
+        }
+    }
+}
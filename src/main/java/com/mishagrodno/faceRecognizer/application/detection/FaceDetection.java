@@ -0,0 +1,75 @@
+package com.mishagrodno.faceRecognizer.application.detection;
+
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacpp.opencv_core.Rect;
+
+/**
+ * The face found by a {@link FaceDetector}.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class FaceDetection {
+
+    /**
+     * Face position on the original frame.
+     */
+    private final Rect face;
+
+    /**
+     * Face position on the resized frame.
+     */
+    private final Rect processed;
+
+    /**
+     * Face angle in radians.
+     */
+    private final double angle;
+
+    /**
+     * Aligned grayscale face image, owned by the frame.
+     */
+    private final Mat image;
+
+    public FaceDetection(final Rect face, final Rect processed, final double angle, final Mat image) {
+        this.face = face;
+        this.processed = processed;
+        this.angle = angle;
+        this.image = image;
+    }
+
+    /**
+     * Gets face position on the original frame.
+     *
+     * @return face position.
+     */
+    public Rect getFace() {
+        return face;
+    }
+
+    /**
+     * Gets face position on the resized frame.
+     *
+     * @return face position.
+     */
+    public Rect getProcessed() {
+        return processed;
+    }
+
+    /**
+     * Gets face angle.
+     *
+     * @return angle in radians.
+     */
+    public double getAngle() {
+        return angle;
+    }
+
+    /**
+     * Gets aligned grayscale face image.
+     *
+     * @return face image.
+     */
+    public Mat getImage() {
+        return image;
+    }
+}
@@ -0,0 +1,24 @@
+package com.mishagrodno.faceRecognizer.application.detection;
+
+import com.mishagrodno.faceRecognizer.application.pipeline.FrameContext;
+
+import java.util.List;
+
+/**
+ * The face detection backend, selected by the {@code detection.backend} property.
+ * One detector is shared by all pipelines.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public interface FaceDetector {
+
+    /**
+     * Detects faces on the frame, safe to call from several threads.
+     *
+     * @param frame frame with the original, grayscale and prepared images.
+     * @param scale downscale factor of the resized images.
+     * @return detected faces, their images are owned by the frame.
+     * @throws Exception if detection failed.
+     */
+    List<FaceDetection> detect(FrameContext frame, double scale) throws Exception;
+}
@@ -0,0 +1,54 @@
+package com.mishagrodno.faceRecognizer.application.index;
+
+/**
+ * The alternative chi-square distance between histograms, the one LBPH uses to compare faces.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class ChiSquare {
+
+    /**
+     * Count of bins summed before the distance is compared with the bound.
+     */
+    private static final int BLOCK = 256;
+
+    /**
+     * Calculates distance 2 * sum((a - b)^2 / (a + b)) between histograms of non-negative bins.
+     * The sum stops early once it exceeds the bound, the returned value is above the bound then.
+     *
+     * @param a       first array.
+     * @param aOffset first histogram offset.
+     * @param b       second array.
+     * @param bOffset second histogram offset.
+     * @param length  count of bins.
+     * @param bound   distance above which the exact value isn't needed.
+     * @return distance.
+     */
+    public static double distance(final float[] a, final int aOffset, final float[] b, final int bOffset,
+                                  final int length, final double bound) {
+        final double halfBound = bound / 2;
+        double sum = 0;
+
+        for (int start = 0; start < length; start += BLOCK) {
+            final int end = Math.min(length, start + BLOCK);
+
+            float block = 0;
+            for (int i = start; i < end; i++) {
+                final float x = a[aOffset + i];
+                final float y = b[bOffset + i];
+                final float s = x + y;
+                if (s > 0) {
+                    final float d = x - y;
+                    block += d * d / s;
+                }
+            }
+
+            sum += block;
+            if (sum > halfBound) {
+                break;
+            }
+        }
+
+        return sum * 2;
+    }
+}
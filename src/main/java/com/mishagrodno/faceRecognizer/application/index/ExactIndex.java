@@ -0,0 +1,102 @@
+package com.mishagrodno.faceRecognizer.application.index;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * The index which compares the query with every entry.
+ * Entries are scanned block by block in plain loops over contiguous arrays. An entry is abandoned as soon as
+ * its partial distance exceeds the current k-th best, and large galleries are scanned in parallel.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class ExactIndex implements FaceIndex {
+
+    /**
+     * Min count of entries scanned in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    private final VectorStore store;
+
+    /**
+     * Creates index.
+     *
+     * @param dimensions count of vector dimensions.
+     */
+    public ExactIndex(final int dimensions) {
+        this.store = new VectorStore(dimensions);
+    }
+
+    private ExactIndex(final VectorStore store) {
+        this.store = store;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void add(final float[] vector, final int label) {
+        store.add(vector, label);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Neighbor> search(final float[] query, final int k) {
+        final int size = store.size();
+        if (size < PARALLEL_THRESHOLD * 2) {
+            return scan(query, k, 0, size).toNeighbors(store);
+        }
+
+        final int chunks = (size + PARALLEL_THRESHOLD - 1) / PARALLEL_THRESHOLD;
+        return IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(i -> scan(query, k, i * PARALLEL_THRESHOLD, Math.min(size, (i + 1) * PARALLEL_THRESHOLD)))
+                .reduce((left, right) -> {
+                    left.merge(right);
+                    return left;
+                })
+                .orElseGet(() -> new TopK(k))
+                .toNeighbors(store);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FaceIndex copy() {
+        return new ExactIndex(new VectorStore(store));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return store.size();
+    }
+
+    static ExactIndex read(final FileChannel channel, final int dimensions) throws IOException {
+        return new ExactIndex(VectorStore.read(channel, dimensions));
+    }
+
+    void write(final FileChannel channel) throws IOException {
+        store.write(channel);
+    }
+
+    private TopK scan(final float[] query, final int k, final int from, final int to) {
+        final TopK top = new TopK(k);
+        for (int id = from; id < to; id++) {
+            final double bound = top.bound();
+            final double distance = store.distance(query, id, bound);
+            if (distance < bound) {
+                top.offer(id, distance);
+            }
+        }
+        return top;
+    }
+}
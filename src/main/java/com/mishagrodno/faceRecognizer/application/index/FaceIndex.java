@@ -0,0 +1,43 @@
+package com.mishagrodno.faceRecognizer.application.index;
+
+import java.util.List;
+
+/**
+ * The nearest neighbour index over gallery feature vectors.
+ * Entries may only be added before the index is shared with searching threads, later entries are added to a copy.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public interface FaceIndex {
+
+    /**
+     * Adds entry.
+     *
+     * @param vector feature vector, copied into the index.
+     * @param label  label of the entry.
+     */
+    void add(float[] vector, int label);
+
+    /**
+     * Finds the nearest entries, safe to call from several threads.
+     *
+     * @param query feature vector.
+     * @param k     max count of entries.
+     * @return entries ordered by distance, the nearest first.
+     */
+    List<Neighbor> search(float[] query, int k);
+
+    /**
+     * Creates independent copy, entries added to the copy are not visible in this index.
+     *
+     * @return copy.
+     */
+    FaceIndex copy();
+
+    /**
+     * Gets count of entries.
+     *
+     * @return count of entries.
+     */
+    int size();
+}
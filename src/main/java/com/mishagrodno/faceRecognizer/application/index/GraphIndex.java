@@ -0,0 +1,439 @@
+package com.mishagrodno.faceRecognizer.application.index;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * The approximate index based on a hierarchical navigable small world graph.
+ * Every entry is linked to its nearest entries on several layers, the upper layers are sparse and let the search
+ * jump close to the query, the bottom layer holds all entries. Search visits only a small part of the gallery,
+ * but may miss the true nearest entry.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class GraphIndex implements FaceIndex {
+
+    private final VectorStore store;
+
+    /**
+     * Links of every entry on upper layers.
+     */
+    private final int links;
+
+    /**
+     * Candidates considered while an entry is inserted.
+     */
+    private final int efConstruction;
+
+    /**
+     * Candidates considered while searching.
+     */
+    private final int efSearch;
+
+    private final double levelFactor;
+
+    private final Random random;
+
+    /**
+     * Neighbours of every entry by layer, the first element of a layer is the count of neighbours.
+     */
+    private final List<int[][]> graph = new ArrayList<>();
+
+    /**
+     * Entries whose links belong to this index alone and may be changed in place, links of the other entries
+     * are shared with the index this one was copied from and are copied before they change.
+     */
+    private final BitSet owned = new BitSet();
+
+    private final ThreadLocal<Visited> visited = ThreadLocal.withInitial(Visited::new);
+
+    private int entryPoint = -1;
+
+    private int topLevel = -1;
+
+    /**
+     * Creates index.
+     *
+     * @param dimensions     count of vector dimensions.
+     * @param links          links of every entry, twice as many on the bottom layer.
+     * @param efConstruction candidates considered while an entry is inserted.
+     * @param efSearch       candidates considered while searching, more is slower and more accurate.
+     */
+    public GraphIndex(final int dimensions, final int links, final int efConstruction, final int efSearch) {
+        this(new VectorStore(dimensions), links, efConstruction, efSearch);
+    }
+
+    private GraphIndex(final VectorStore store, final int links, final int efConstruction, final int efSearch) {
+        this.store = store;
+        this.links = links;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.levelFactor = 1 / Math.log(links);
+        this.random = new Random(42);
+    }
+
+    private GraphIndex(final GraphIndex source, final List<int[][]> graph) {
+        this.store = new VectorStore(source.store);
+        this.links = source.links;
+        this.efConstruction = source.efConstruction;
+        this.efSearch = source.efSearch;
+        this.levelFactor = source.levelFactor;
+        this.random = new Random(source.random.nextLong());
+        this.entryPoint = source.entryPoint;
+        this.topLevel = source.topLevel;
+        this.graph.addAll(graph);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void add(final float[] vector, final int label) {
+        final int id = store.add(vector, label);
+        final int level = (int) (-Math.log(1 - random.nextDouble()) * levelFactor);
+
+        final int[][] layers = new int[level + 1][];
+        for (int layer = 0; layer <= level; layer++) {
+            layers[layer] = new int[1 + capacity(layer)];
+        }
+        graph.add(layers);
+        owned.set(id);
+
+        if (entryPoint < 0) {
+            entryPoint = id;
+            topLevel = level;
+            return;
+        }
+
+        int current = entryPoint;
+        for (int layer = topLevel; layer > level; layer--) {
+            current = greedy(vector, current, layer);
+        }
+
+        for (int layer = Math.min(level, topLevel); layer >= 0; layer--) {
+            final List<Candidate> candidates = searchLayer(vector, current, efConstruction, layer);
+            for (final Candidate neighbour : select(candidates, links)) {
+                connect(id, neighbour.id, layer);
+                connect(neighbour.id, id, layer);
+            }
+            current = candidates.get(0).id;
+        }
+
+        if (level > topLevel) {
+            entryPoint = id;
+            topLevel = level;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Neighbor> search(final float[] query, final int k) {
+        final List<Neighbor> neighbors = new ArrayList<>();
+        if (entryPoint < 0) {
+            return neighbors;
+        }
+
+        int current = entryPoint;
+        for (int layer = topLevel; layer > 0; layer--) {
+            current = greedy(query, current, layer);
+        }
+
+        final List<Candidate> candidates = searchLayer(query, current, Math.max(efSearch, k), 0);
+        for (int i = 0; i < Math.min(k, candidates.size()); i++) {
+            neighbors.add(new Neighbor(store.label(candidates.get(i).id), candidates.get(i).distance));
+        }
+        return neighbors;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FaceIndex copy() {
+        // links become shared, so neither index changes them in place any more.
+        owned.clear();
+        return new GraphIndex(this, graph);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return store.size();
+    }
+
+    /**
+     * Reads index written by {@link #write(FileChannel)}.
+     *
+     * @param channel    channel.
+     * @param dimensions expected count of vector dimensions.
+     * @param efSearch   candidates considered while searching.
+     * @return index.
+     * @throws IOException if the index can't be read.
+     */
+    static GraphIndex read(final FileChannel channel, final int dimensions, final int efSearch) throws IOException {
+        final int[] header = IndexSnapshot.readInts(channel, 5);
+        final GraphIndex index = new GraphIndex(VectorStore.read(channel, dimensions), header[0], header[1], efSearch);
+        index.entryPoint = header[2];
+        index.topLevel = header[3];
+
+        final int[] links = IndexSnapshot.readInts(channel, header[4]);
+        for (int position = 0, id = 0; id < index.store.size(); id++) {
+            final int[][] layers = new int[links[position++]][];
+            for (int layer = 0; layer < layers.length; layer++) {
+                final int count = links[position];
+                layers[layer] = new int[1 + index.capacity(layer)];
+                System.arraycopy(links, position, layers[layer], 0, 1 + count);
+                position += 1 + count;
+            }
+            index.graph.add(layers);
+        }
+        index.owned.set(0, index.store.size());
+        return index;
+    }
+
+    /**
+     * Writes vectors and links at the channel position, only the used part of every layer is written.
+     *
+     * @param channel channel.
+     * @throws IOException if the index can't be written.
+     */
+    void write(final FileChannel channel) throws IOException {
+        int length = 0;
+        for (final int[][] layers : graph) {
+            length++;
+            for (final int[] layer : layers) {
+                length += 1 + layer[0];
+            }
+        }
+
+        final int[] links = new int[length];
+        int position = 0;
+        for (final int[][] layers : graph) {
+            links[position++] = layers.length;
+            for (final int[] layer : layers) {
+                System.arraycopy(layer, 0, links, position, 1 + layer[0]);
+                position += 1 + layer[0];
+            }
+        }
+
+        IndexSnapshot.writeInts(channel, new int[]{this.links, efConstruction, entryPoint, topLevel, length}, 5);
+        store.write(channel);
+        IndexSnapshot.writeInts(channel, links, length);
+    }
+
+    private int capacity(final int layer) {
+        return layer == 0 ? links * 2 : links;
+    }
+
+    /**
+     * Moves to the nearest neighbour while it is closer to the query.
+     */
+    private int greedy(final float[] query, final int start, final int layer) {
+        int current = start;
+        double currentDistance = store.distance(query, current, Double.MAX_VALUE);
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            final int[] neighbours = graph.get(current)[layer];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                final double distance = store.distance(query, neighbours[i], currentDistance);
+                if (distance < currentDistance) {
+                    current = neighbours[i];
+                    currentDistance = distance;
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Finds up to ef entries nearest to the query on the layer.
+     *
+     * @return entries ordered by distance, the nearest first.
+     */
+    private List<Candidate> searchLayer(final float[] query, final int start, final int ef, final int layer) {
+        final Visited marks = visited.get().reset(store.size());
+
+        final PriorityQueue<Candidate> candidates = new PriorityQueue<>(Comparator.comparingDouble(c -> c.distance));
+        final PriorityQueue<Candidate> found = new PriorityQueue<>(
+                Comparator.comparingDouble((Candidate c) -> c.distance).reversed());
+
+        final Candidate first = new Candidate(start, store.distance(query, start, Double.MAX_VALUE));
+        marks.mark(start);
+        candidates.add(first);
+        found.add(first);
+
+        while (!candidates.isEmpty()) {
+            final Candidate candidate = candidates.poll();
+            if (found.size() >= ef && candidate.distance > found.peek().distance) {
+                break;
+            }
+
+            final int[] neighbours = graph.get(candidate.id)[layer];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                final int neighbour = neighbours[i];
+                if (!marks.mark(neighbour)) {
+                    continue;
+                }
+
+                final double bound = found.size() < ef ? Double.MAX_VALUE : found.peek().distance;
+                final double distance = store.distance(query, neighbour, bound);
+                if (distance < bound) {
+                    final Candidate next = new Candidate(neighbour, distance);
+                    candidates.add(next);
+                    found.add(next);
+                    if (found.size() > ef) {
+                        found.poll();
+                    }
+                }
+            }
+        }
+
+        final List<Candidate> result = new ArrayList<>(found);
+        result.sort(Comparator.comparingDouble(c -> c.distance));
+        return result;
+    }
+
+    /**
+     * Selects neighbours which are closer to the new entry than to each other, so links spread in all directions,
+     * the rest of the slots are filled with the nearest skipped candidates.
+     */
+    private List<Candidate> select(final List<Candidate> candidates, final int count) {
+        final List<Candidate> selected = new ArrayList<>(count);
+        final List<Candidate> skipped = new ArrayList<>();
+
+        for (final Candidate candidate : candidates) {
+            if (selected.size() >= count) {
+                break;
+            }
+
+            boolean diverse = true;
+            for (final Candidate other : selected) {
+                if (store.distance(candidate.id, other.id) < candidate.distance) {
+                    diverse = false;
+                    break;
+                }
+            }
+
+            if (diverse) {
+                selected.add(candidate);
+            } else {
+                skipped.add(candidate);
+            }
+        }
+
+        for (int i = 0; i < skipped.size() && selected.size() < count; i++) {
+            selected.add(skipped.get(i));
+        }
+        return selected;
+    }
+
+    /**
+     * Links entry to the neighbour, the farthest links are dropped when the entry has too many.
+     */
+    private void connect(final int id, final int neighbour, final int layer) {
+        final int[] neighbours = own(id)[layer];
+        final int count = neighbours[0];
+
+        if (count < neighbours.length - 1) {
+            neighbours[count + 1] = neighbour;
+            neighbours[0]++;
+            return;
+        }
+
+        final List<Candidate> candidates = new ArrayList<>(count + 1);
+        candidates.add(new Candidate(neighbour, store.distance(id, neighbour)));
+        for (int i = 1; i <= count; i++) {
+            candidates.add(new Candidate(neighbours[i], store.distance(id, neighbours[i])));
+        }
+        candidates.sort(Comparator.comparingDouble(c -> c.distance));
+
+        final List<Candidate> kept = select(candidates, count);
+        for (int i = 0; i < kept.size(); i++) {
+            neighbours[i + 1] = kept.get(i).id;
+        }
+        neighbours[0] = kept.size();
+    }
+
+    /**
+     * Gets links of the entry which may be changed in place, shared links are copied first.
+     */
+    private int[][] own(final int id) {
+        if (owned.get(id)) {
+            return graph.get(id);
+        }
+
+        final int[][] layers = graph.get(id);
+        final int[][] copy = new int[layers.length][];
+        for (int layer = 0; layer < layers.length; layer++) {
+            copy[layer] = layers[layer].clone();
+        }
+        graph.set(id, copy);
+        owned.set(id);
+        return copy;
+    }
+
+    /**
+     * Entry with its distance to the query.
+     */
+    private static class Candidate {
+
+        private final int id;
+
+        private final double distance;
+
+        private Candidate(final int id, final double distance) {
+            this.id = id;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * Entries visited by the current search of a thread.
+     */
+    private static class Visited {
+
+        private int[] marks = new int[0];
+
+        private int epoch;
+
+        private Visited reset(final int size) {
+            if (marks.length < size) {
+                marks = new int[Math.max(size, marks.length * 2)];
+                epoch = 0;
+            }
+            if (epoch == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                epoch = 0;
+            }
+            epoch++;
+            return this;
+        }
+
+        /**
+         * Marks entry as visited.
+         *
+         * @return true if it wasn't visited yet.
+         */
+        private boolean mark(final int id) {
+            if (marks[id] == epoch) {
+                return false;
+            }
+            marks[id] = epoch;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.mishagrodno.faceRecognizer.application.index;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * The binary snapshot of an index.
+ * Vectors are written as they lie in the index blocks and are read back through memory-mapped regions
+ * of the file straight into new blocks, so restoring an index costs about as much as reading the file.
+ * Graph links are restored as well, so the graph isn't rebuilt.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public final class IndexSnapshot {
+
+    private static final int EXACT = 0;
+
+    private static final int GRAPH = 1;
+
+    /**
+     * Max bytes written at once.
+     */
+    private static final int CHUNK_BYTES = 1 << 20;
+
+    /**
+     * Min bytes read through a memory-mapped region, smaller parts are just read.
+     */
+    private static final int MAP_BYTES = 1 << 16;
+
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private IndexSnapshot() {
+    }
+
+    /**
+     * Writes index at the channel position.
+     *
+     * @param index   index, it must not be changed while written.
+     * @param channel channel.
+     * @throws IOException if the index can't be written.
+     */
+    public static void write(final FaceIndex index, final FileChannel channel) throws IOException {
+        if (index instanceof GraphIndex) {
+            writeInts(channel, new int[]{GRAPH}, 1);
+            ((GraphIndex) index).write(channel);
+        } else if (index instanceof ExactIndex) {
+            writeInts(channel, new int[]{EXACT}, 1);
+            ((ExactIndex) index).write(channel);
+        } else {
+            throw new IllegalArgumentException("Unsupported index " + index.getClass().getName());
+        }
+    }
+
+    /**
+     * Reads index from the channel position.
+     *
+     * @param channel    channel.
+     * @param dimensions expected count of vector dimensions.
+     * @param efSearch   candidates considered while searching a graph index.
+     * @return index.
+     * @throws IOException if the index can't be read or has other dimensions.
+     */
+    public static FaceIndex read(final FileChannel channel, final int dimensions, final int efSearch)
+            throws IOException {
+        final int type = readInts(channel, 1)[0];
+        switch (type) {
+            case EXACT:
+                return ExactIndex.read(channel, dimensions);
+            case GRAPH:
+                return GraphIndex.read(channel, dimensions, efSearch);
+            default:
+                throw new IOException("Unknown index type " + type);
+        }
+    }
+
+    static void writeInts(final FileChannel channel, final int[] values, final int count) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(Math.min(CHUNK_BYTES, Math.max(1, count) * Integer.BYTES))
+                .order(ORDER);
+        for (int from = 0; from < count; ) {
+            final int length = Math.min(count - from, buffer.capacity() / Integer.BYTES);
+            buffer.clear();
+            buffer.asIntBuffer().put(values, from, length);
+            buffer.limit(length * Integer.BYTES);
+            writeFully(channel, buffer);
+            from += length;
+        }
+    }
+
+    static void writeFloats(final FileChannel channel, final float[] values, final int count) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(Math.min(CHUNK_BYTES, Math.max(1, count) * Float.BYTES))
+                .order(ORDER);
+        for (int from = 0; from < count; ) {
+            final int length = Math.min(count - from, buffer.capacity() / Float.BYTES);
+            buffer.clear();
+            buffer.asFloatBuffer().put(values, from, length);
+            buffer.limit(length * Float.BYTES);
+            writeFully(channel, buffer);
+            from += length;
+        }
+    }
+
+    static int[] readInts(final FileChannel channel, final int count) throws IOException {
+        final int[] values = new int[count];
+        map(channel, (long) count * Integer.BYTES).asIntBuffer().get(values);
+        return values;
+    }
+
+    static void readFloats(final FileChannel channel, final float[] target, final int count) throws IOException {
+        map(channel, (long) count * Float.BYTES).asFloatBuffer().get(target, 0, count);
+    }
+
+    /**
+     * Maps the next bytes of the channel and moves past them.
+     */
+    private static ByteBuffer map(final FileChannel channel, final long bytes) throws IOException {
+        final long position = channel.position();
+        if (position + bytes > channel.size()) {
+            throw new EOFException("Snapshot is truncated at " + position);
+        }
+
+        if (bytes < MAP_BYTES) {
+            final ByteBuffer buffer = ByteBuffer.allocate((int) bytes).order(ORDER);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Snapshot is truncated at " + channel.position());
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, bytes).order(ORDER);
+        channel.position(position + bytes);
+        return buffer;
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.mishagrodno.faceRecognizer.application.index;
+
+import org.bytedeco.javacpp.opencv_core.Mat;
+
+/**
+ * The extractor of the spatial local binary pattern histograms LBPH compares faces by.
+ * It matches {@code LBPHFaceRecognizer.create()}: radius 1, 8 neighbours and 8 x 8 grid of normalized histograms,
+ * so distances between histograms are the confidences LBPH predict reports.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class LbphHistogram {
+
+    private static final int RADIUS = 1;
+
+    private static final int NEIGHBOURS = 8;
+
+    private static final int GRID = 8;
+
+    private static final int PATTERNS = 1 << NEIGHBOURS;
+
+    /**
+     * Count of histogram dimensions.
+     */
+    public static final int DIMENSIONS = GRID * GRID * PATTERNS;
+
+    private static final float EPSILON = Math.ulp(1.0f);
+
+    private static final int[] FX = new int[NEIGHBOURS];
+    private static final int[] FY = new int[NEIGHBOURS];
+    private static final int[] CX = new int[NEIGHBOURS];
+    private static final int[] CY = new int[NEIGHBOURS];
+    private static final float[] W1 = new float[NEIGHBOURS];
+    private static final float[] W2 = new float[NEIGHBOURS];
+    private static final float[] W3 = new float[NEIGHBOURS];
+    private static final float[] W4 = new float[NEIGHBOURS];
+
+    static {
+        for (int n = 0; n < NEIGHBOURS; n++) {
+            final float x = (float) (RADIUS * Math.cos(2.0 * Math.PI * n / (float) NEIGHBOURS));
+            final float y = (float) (-RADIUS * Math.sin(2.0 * Math.PI * n / (float) NEIGHBOURS));
+
+            FX[n] = (int) Math.floor(x);
+            FY[n] = (int) Math.floor(y);
+            CX[n] = (int) Math.ceil(x);
+            CY[n] = (int) Math.ceil(y);
+
+            final float ty = y - FY[n];
+            final float tx = x - FX[n];
+
+            W1[n] = (1 - tx) * (1 - ty);
+            W2[n] = tx * (1 - ty);
+            W3[n] = (1 - tx) * ty;
+            W4[n] = tx * ty;
+        }
+    }
+
+    /**
+     * Extracts histogram of the face.
+     *
+     * @param face grayscale face.
+     * @return histogram of {@link #DIMENSIONS} bins.
+     */
+    public static float[] extract(final Mat face) {
+        final Mat continuous = face.isContinuous() ? face : face.clone();
+        final int rows = continuous.rows();
+        final int cols = continuous.cols();
+
+        final byte[] pixels = new byte[rows * cols];
+        continuous.data().get(pixels);
+        if (continuous != face) {
+            continuous.release();
+        }
+
+        return extract(pixels, rows, cols);
+    }
+
+    /**
+     * Extracts histogram of the face.
+     *
+     * @param pixels grayscale pixels row by row.
+     * @param rows   rows.
+     * @param cols   columns.
+     * @return histogram of {@link #DIMENSIONS} bins.
+     */
+    public static float[] extract(final byte[] pixels, final int rows, final int cols) {
+        final int lbpRows = rows - 2 * RADIUS;
+        final int lbpCols = cols - 2 * RADIUS;
+        final float[] histogram = new float[DIMENSIONS];
+        if (lbpRows <= 0 || lbpCols <= 0) {
+            return histogram;
+        }
+
+        final int[] codes = new int[lbpRows * lbpCols];
+        for (int n = 0; n < NEIGHBOURS; n++) {
+            for (int i = RADIUS; i < rows - RADIUS; i++) {
+                for (int j = RADIUS; j < cols - RADIUS; j++) {
+                    final float t = W1[n] * pixel(pixels, cols, i + FY[n], j + FX[n])
+                            + W2[n] * pixel(pixels, cols, i + FY[n], j + CX[n])
+                            + W3[n] * pixel(pixels, cols, i + CY[n], j + FX[n])
+                            + W4[n] * pixel(pixels, cols, i + CY[n], j + CX[n]);
+                    final int center = pixel(pixels, cols, i, j);
+                    if (t > center || Math.abs(t - center) < EPSILON) {
+                        codes[(i - RADIUS) * lbpCols + (j - RADIUS)] += 1 << n;
+                    }
+                }
+            }
+        }
+
+        final int cellWidth = lbpCols / GRID;
+        final int cellHeight = lbpRows / GRID;
+        if (cellWidth == 0 || cellHeight == 0) {
+            return histogram;
+        }
+
+        final float cellTotal = cellWidth * cellHeight;
+        for (int gy = 0; gy < GRID; gy++) {
+            for (int gx = 0; gx < GRID; gx++) {
+                final int offset = (gy * GRID + gx) * PATTERNS;
+                for (int i = gy * cellHeight; i < (gy + 1) * cellHeight; i++) {
+                    for (int j = gx * cellWidth; j < (gx + 1) * cellWidth; j++) {
+                        histogram[offset + codes[i * lbpCols + j]]++;
+                    }
+                }
+                for (int bin = offset; bin < offset + PATTERNS; bin++) {
+                    histogram[bin] /= cellTotal;
+                }
+            }
+        }
+
+        return histogram;
+    }
+
+    private static int pixel(final byte[] pixels, final int cols, final int row, final int col) {
+        return pixels[row * cols + col] & 0xFF;
+    }
+}
@@ -0,0 +1,36 @@
+package com.mishagrodno.faceRecognizer.application.index;
+
+/**
+ * The gallery entry found by a {@link FaceIndex} search.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class Neighbor {
+
+    private final int label;
+
+    private final double distance;
+
+    public Neighbor(final int label, final double distance) {
+        this.label = label;
+        this.distance = distance;
+    }
+
+    /**
+     * Gets label of the entry.
+     *
+     * @return label.
+     */
+    public int getLabel() {
+        return label;
+    }
+
+    /**
+     * Gets distance to the query, the same value LBPH predict reports as confidence.
+     *
+     * @return distance.
+     */
+    public double getDistance() {
+        return distance;
+    }
+}
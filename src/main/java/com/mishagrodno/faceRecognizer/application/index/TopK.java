@@ -0,0 +1,61 @@
+package com.mishagrodno.faceRecognizer.application.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The k nearest entries found so far, kept sorted by distance.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+class TopK {
+
+    private final int[] ids;
+
+    private final double[] distances;
+
+    private int size;
+
+    TopK(final int k) {
+        ids = new int[k];
+        distances = new double[k];
+    }
+
+    /**
+     * Gets distance an entry has to beat to get in.
+     *
+     * @return distance of the k-th entry, or max value while there are fewer entries.
+     */
+    double bound() {
+        return size < ids.length ? Double.MAX_VALUE : distances[size - 1];
+    }
+
+    void offer(final int id, final double distance) {
+        if (distance >= bound()) {
+            return;
+        }
+
+        int position = size < ids.length ? size++ : size - 1;
+        while (position > 0 && distances[position - 1] > distance) {
+            ids[position] = ids[position - 1];
+            distances[position] = distances[position - 1];
+            position--;
+        }
+        ids[position] = id;
+        distances[position] = distance;
+    }
+
+    void merge(final TopK other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.ids[i], other.distances[i]);
+        }
+    }
+
+    List<Neighbor> toNeighbors(final VectorStore store) {
+        final List<Neighbor> neighbors = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            neighbors.add(new Neighbor(store.label(ids[i]), distances[i]));
+        }
+        return neighbors;
+    }
+}
@@ -0,0 +1,200 @@
+package com.mishagrodno.faceRecognizer.application.index;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The storage of feature vectors in large contiguous float blocks.
+ * A single Java array can't hold a large gallery, so vectors are split into blocks of a fixed count of entries.
+ * The last block grows geometrically up to that count, so a small gallery takes little memory.
+ * Copies share all blocks: entries are only appended, and a store appends in place only if no other store sharing
+ * the block has appended there, otherwise it takes its own copy of the block first.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+class VectorStore {
+
+    /**
+     * Max floats in one block, 64 MB.
+     */
+    private static final int BLOCK_FLOATS = 1 << 24;
+
+    /**
+     * Entries of a new block, it doubles when full.
+     */
+    private static final int INITIAL_ENTRIES = 16;
+
+    private final int dimensions;
+
+    private final int blockEntries;
+
+    private final List<Block> blocks = new ArrayList<>();
+
+    private int size;
+
+    VectorStore(final int dimensions) {
+        this.dimensions = dimensions;
+        this.blockEntries = Math.max(1, BLOCK_FLOATS / dimensions);
+    }
+
+    /**
+     * Creates copy of the store. Blocks are shared, so the copy costs as much as the list of blocks.
+     *
+     * @param source store to copy.
+     */
+    VectorStore(final VectorStore source) {
+        this.dimensions = source.dimensions;
+        this.blockEntries = source.blockEntries;
+        this.blocks.addAll(source.blocks);
+        this.size = source.size;
+    }
+
+    /**
+     * Reads store written by {@link #write(FileChannel)}.
+     *
+     * @param channel    channel.
+     * @param dimensions expected count of vector dimensions.
+     * @return store.
+     * @throws IOException if the store can't be read or has other dimensions.
+     */
+    static VectorStore read(final FileChannel channel, final int dimensions) throws IOException {
+        final int[] header = IndexSnapshot.readInts(channel, 2);
+        if (header[0] != dimensions) {
+            throw new IOException("Snapshot has " + header[0] + " dimensions, expected " + dimensions);
+        }
+
+        final VectorStore store = new VectorStore(dimensions);
+        final int size = header[1];
+        final int[] labels = IndexSnapshot.readInts(channel, size);
+        for (int id = 0; id < size; id += store.blockEntries) {
+            final int entries = Math.min(store.blockEntries, size - id);
+            final Block block = new Block(entries, dimensions);
+            System.arraycopy(labels, id, block.labels, 0, entries);
+            IndexSnapshot.readFloats(channel, block.vectors, entries * dimensions);
+            block.claimed.set(entries);
+            store.blocks.add(block);
+        }
+        store.size = size;
+        return store;
+    }
+
+    /**
+     * Writes labels and vectors at the channel position.
+     *
+     * @param channel channel.
+     * @throws IOException if the store can't be written.
+     */
+    void write(final FileChannel channel) throws IOException {
+        IndexSnapshot.writeInts(channel, new int[]{dimensions, size}, 2);
+        for (int id = 0; id < size; id += blockEntries) {
+            IndexSnapshot.writeInts(channel, blocks.get(id / blockEntries).labels, Math.min(blockEntries, size - id));
+        }
+        for (int id = 0; id < size; id += blockEntries) {
+            IndexSnapshot.writeFloats(channel, block(id), Math.min(blockEntries, size - id) * dimensions);
+        }
+    }
+
+    int add(final float[] vector, final int label) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions, got " + vector.length);
+        }
+
+        final int entry = size % blockEntries;
+        if (entry == 0) {
+            blocks.add(new Block(Math.min(INITIAL_ENTRIES, blockEntries), dimensions));
+        }
+
+        Block block = blocks.get(blocks.size() - 1);
+        if (entry == block.capacity() || !block.claimed.compareAndSet(entry, entry + 1)) {
+            // the block is full or another store has appended to it, this store continues in its own copy.
+            final int capacity = entry == block.capacity() ? Math.min(blockEntries, entry * 2) : block.capacity();
+            block = block.copy(entry, capacity, dimensions);
+            block.claimed.set(entry + 1);
+            blocks.set(blocks.size() - 1, block);
+        }
+
+        System.arraycopy(vector, 0, block.vectors, entry * dimensions, dimensions);
+        block.labels[entry] = label;
+        return size++;
+    }
+
+    float[] block(final int id) {
+        return blocks.get(id / blockEntries).vectors;
+    }
+
+    int offset(final int id) {
+        return (id % blockEntries) * dimensions;
+    }
+
+    int label(final int id) {
+        return blocks.get(id / blockEntries).labels[id % blockEntries];
+    }
+    int dimensions() {
+        return dimensions;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Calculates distance from the query to the entry.
+     *
+     * @param query query.
+     * @param id    entry.
+     * @param bound distance above which the exact value isn't needed.
+     * @return distance.
+     */
+    double distance(final float[] query, final int id, final double bound) {
+        return ChiSquare.distance(query, 0, block(id), offset(id), dimensions, bound);
+    }
+
+    /**
+     * Calculates distance between two entries.
+     *
+     * @param first  first entry.
+     * @param second second entry.
+     * @return distance.
+     */
+    double distance(final int first, final int second) {
+        return ChiSquare.distance(block(first), offset(first), block(second), offset(second), dimensions,
+                Double.MAX_VALUE);
+    }
+
+    /**
+     * Vectors and labels of consecutive entries.
+     */
+    private static class Block {
+
+        private final float[] vectors;
+
+        private final int[] labels;
+
+        /**
+         * Entries appended to the block by any store sharing it, a store may append in place only at this position.
+         */
+        private final AtomicInteger claimed = new AtomicInteger();
+
+        private Block(final int capacity, final int dimensions) {
+            this.vectors = new float[capacity * dimensions];
+            this.labels = new int[capacity];
+        }
+
+        private int capacity() {
+            return labels.length;
+        }
+
+        /**
+         * Copies first entries to a new block.
+         */
+        private Block copy(final int entries, final int capacity, final int dimensions) {
+            final Block copy = new Block(capacity, dimensions);
+            System.arraycopy(vectors, 0, copy.vectors, 0, entries * dimensions);
+            System.arraycopy(labels, 0, copy.labels, 0, entries);
+            return copy;
+        }
+    }
+}
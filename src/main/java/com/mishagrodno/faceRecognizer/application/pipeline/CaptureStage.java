@@ -0,0 +1,66 @@
+package com.mishagrodno.faceRecognizer.application.pipeline;
+
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.FrameGrabber;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * The stage which grabs frames from the source.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class CaptureStage extends PipelineStage {
+
+    private final FrameGrabber grabber;
+
+    private final BooleanSupplier active;
+
+    private final String source;
+
+    private long index;
+
+    private final OpenCVFrameConverter.ToMat toMat = new OpenCVFrameConverter.ToMat();
+
+    /**
+     * Creates capture stage.
+     *
+     * @param source  source name.
+     * @param grabber started grabber.
+     * @param active  tells if capturing should go on.
+     */
+    public CaptureStage(final String source, final FrameGrabber grabber, final BooleanSupplier active) {
+        super("capture");
+        this.source = source;
+        this.grabber = grabber;
+        this.active = active;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean process(final FrameContext frame) throws Exception {
+        Frame grabbedImage = active.getAsBoolean() ? grabber.grab() : null;
+        // video files interleave audio frames, they are skipped.
+        while (grabbedImage != null && grabbedImage.image == null) {
+            grabbedImage = grabber.grab();
+        }
+        if (grabbedImage == null) {
+            finish();
+            return false;
+        }
+
+        // grabber reuses its buffer for the next frame, so the frame has to own a copy.
+        final Mat grabbed = toMat.convert(grabbedImage);
+        final Mat image = frame.acquire(grabbed.rows(), grabbed.cols(), grabbed.type());
+        grabbed.copyTo(image);
+        frame.setImage(image);
+        frame.setSource(source);
+        frame.setIndex(index++);
+        frame.setTimestamp(grabbedImage.timestamp / 1000);
+        return true;
+    }
+}
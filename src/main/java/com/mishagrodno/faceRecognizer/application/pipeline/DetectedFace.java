@@ -0,0 +1,114 @@
+package com.mishagrodno.faceRecognizer.application.pipeline;
+
+import com.mishagrodno.faceRecognizer.application.FaceTrack;
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacpp.opencv_core.Rect;
+
+/**
+ * The face detected on a frame.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class DetectedFace {
+
+    /**
+     * Face position on the original frame.
+     */
+    private final Rect face;
+
+    /**
+     * Face angle in radians.
+     */
+    private final double angle;
+
+    /**
+     * Aligned grayscale face image used for recognition, owned by the frame, null if face was only tracked.
+     */
+    private final Mat image;
+
+    /**
+     * Track of the face, null if tracking is disabled.
+     */
+    private final FaceTrack track;
+
+    /**
+     * Name of the recognized human.
+     */
+    private String name = "Unknown";
+
+    /**
+     * Is face recognized.
+     */
+    private boolean recognized;
+
+    public DetectedFace(final Rect face, final double angle, final Mat image, final FaceTrack track) {
+        this.face = face;
+        this.angle = angle;
+        this.image = image;
+        this.track = track;
+    }
+
+    /**
+     * Gets face position.
+     *
+     * @return face position.
+     */
+    public Rect getFace() {
+        return face;
+    }
+
+    /**
+     * Gets face angle.
+     *
+     * @return angle in radians.
+     */
+    public double getAngle() {
+        return angle;
+    }
+
+    /**
+     * Gets face image.
+     *
+     * @return face image.
+     */
+    public Mat getImage() {
+        return image;
+    }
+
+    /**
+     * Gets face track.
+     *
+     * @return track or null if tracking is disabled.
+     */
+    public FaceTrack getTrack() {
+        return track;
+    }
+
+    /**
+     * Gets name.
+     *
+     * @return name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Is face recognized.
+     *
+     * @return true if recognized.
+     */
+    public boolean isRecognized() {
+        return recognized;
+    }
+
+    /**
+     * Marks face as recognized.
+     *
+     * @param name name of the recognized human.
+     */
+    public void recognized(final String name) {
+        this.name = name;
+        this.recognized = true;
+    }
+}
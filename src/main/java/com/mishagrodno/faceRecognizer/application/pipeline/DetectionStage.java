@@ -0,0 +1,86 @@
+package com.mishagrodno.faceRecognizer.application.pipeline;
+
+import com.mishagrodno.faceRecognizer.application.FaceTrack;
+import com.mishagrodno.faceRecognizer.application.FaceTracker;
+import com.mishagrodno.faceRecognizer.application.ScanWindow;
+import com.mishagrodno.faceRecognizer.application.detection.FaceDetection;
+import com.mishagrodno.faceRecognizer.application.detection.FaceDetector;
+import org.bytedeco.javacpp.opencv_core.Mat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The stage which detects faces with the configured detection backend.
+ * When tracking is enabled, faces are only tracked between full detections, except while faces are requested
+ * to be saved, since only detected faces have images to save.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class DetectionStage extends PipelineStage {
+
+    private final FaceDetector detector;
+
+    private final FaceTracker tracker;
+
+    private final double scale;
+
+    private final AtomicInteger saveRequested;
+
+    private final ScanWindow eyeWindow;
+
+    /**
+     * Creates detection stage.
+     *
+     * @param detector      detection backend.
+     * @param tracker       face tracker or null if tracking is disabled.
+     * @param scale         downscale factor of the processed image.
+     * @param saveRequested count of next detected faces which should be saved.
+     * @param eyeWindow     window of eye sizes of the stream.
+     */
+    public DetectionStage(final FaceDetector detector, final FaceTracker tracker, final double scale,
+                          final AtomicInteger saveRequested, final ScanWindow eyeWindow) {
+        super("detect");
+        this.detector = detector;
+        this.tracker = tracker;
+        this.scale = scale;
+        this.saveRequested = saveRequested;
+        this.eyeWindow = eyeWindow;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean process(final FrameContext frame) throws Exception {
+        final Mat grayResized = frame.getGray();
+
+        if (tracker != null && saveRequested.get() <= 0 && !tracker.needsDetection()) {
+            for (final FaceTrack track : tracker.track(grayResized)) {
+                frame.getFaces().add(new DetectedFace(track.getFace(scale), track.getAngle(), null, track));
+            }
+            return true;
+        }
+
+        frame.setEyeWindow(eyeWindow);
+        for (final FaceDetection detection : detector.detect(frame, scale)) {
+            final FaceTrack track = tracker == null ? null
+                    : tracker.detected(grayResized, detection.getProcessed(), detection.getAngle());
+            frame.getFaces().add(new DetectedFace(detection.getFace(), detection.getAngle(), detection.getImage(), track));
+        }
+        if (tracker != null) {
+            tracker.detectionDone();
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void close() {
+        if (tracker != null) {
+            tracker.release();
+        }
+    }
+}
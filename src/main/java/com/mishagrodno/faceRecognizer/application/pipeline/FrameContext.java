@@ -0,0 +1,258 @@
+package com.mishagrodno.faceRecognizer.application.pipeline;
+
+import com.mishagrodno.faceRecognizer.application.MatPool;
+import com.mishagrodno.faceRecognizer.application.ScanWindow;
+import org.bytedeco.javacpp.opencv_core.Mat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The frame passed through the pipeline stages.
+ * Every stage fills its own part of the context, the last stage releases it.
+ * Images of the frame are taken from the pool and returned to it when the frame is released.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class FrameContext {
+
+    /**
+     * Time when the frame was grabbed.
+     */
+    private final long start = System.currentTimeMillis();
+
+    /**
+     * Detected faces.
+     */
+    private final List<DetectedFace> faces = new ArrayList<>();
+
+    /**
+     * Images taken from the pool for this frame.
+     */
+    private final List<Mat> scoped = new ArrayList<>();
+
+    private final MatPool pool;
+
+    /**
+     * Name of the frame source.
+     */
+    private String source;
+
+    /**
+     * Index of the frame in the source.
+     */
+    private long index;
+
+    /**
+     * Position of the frame in the source in millis.
+     */
+    private long timestamp;
+
+    /**
+     * Original color image.
+     */
+    private Mat image;
+
+    /**
+     * Resized grayscale image.
+     */
+    private Mat gray;
+
+    /**
+     * Resized image prepared for detection.
+     */
+    private Mat prepared;
+
+    /**
+     * Window of eye sizes of the stream, set by the detection stage.
+     */
+    private ScanWindow eyeWindow;
+
+    /**
+     * Creates frame.
+     *
+     * @param pool pool of frame images.
+     */
+    public FrameContext(final MatPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Takes image from the pool, it is returned to the pool when the frame is released.
+     *
+     * @param rows rows.
+     * @param cols columns.
+     * @param type type.
+     * @return image with undefined content.
+     */
+    public Mat acquire(final int rows, final int cols, final int type) {
+        final Mat mat = pool.acquire(rows, cols, type);
+        scoped.add(mat);
+        return mat;
+    }
+
+    /**
+     * Gets pool of frame images.
+     *
+     * @return pool.
+     */
+    public MatPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Gets grab time.
+     *
+     * @return grab time in millis.
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Gets source name.
+     *
+     * @return source name.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Sets source name.
+     *
+     * @param source source name.
+     */
+    public void setSource(final String source) {
+        this.source = source;
+    }
+
+    /**
+     * Gets frame index.
+     *
+     * @return frame index.
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * Sets frame index.
+     *
+     * @param index frame index.
+     */
+    public void setIndex(final long index) {
+        this.index = index;
+    }
+
+    /**
+     * Gets frame position in the source.
+     *
+     * @return position in millis.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Sets frame position in the source.
+     *
+     * @param timestamp position in millis.
+     */
+    public void setTimestamp(final long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Gets original image.
+     *
+     * @return image.
+     */
+    public Mat getImage() {
+        return image;
+    }
+
+    /**
+     * Sets original image, it must be taken from the frame.
+     *
+     * @param image image.
+     */
+    public void setImage(final Mat image) {
+        this.image = image;
+    }
+
+    /**
+     * Gets resized grayscale image.
+     *
+     * @return grayscale image.
+     */
+    public Mat getGray() {
+        return gray;
+    }
+
+    /**
+     * Sets resized grayscale image, it must be taken from the frame.
+     *
+     * @param gray grayscale image.
+     */
+    public void setGray(final Mat gray) {
+        this.gray = gray;
+    }
+
+    /**
+     * Gets image prepared for detection.
+     *
+     * @return prepared image.
+     */
+    public Mat getPrepared() {
+        return prepared;
+    }
+
+    /**
+     * Sets image prepared for detection, it must be taken from the frame.
+     *
+     * @param prepared prepared image.
+     */
+    public void setPrepared(final Mat prepared) {
+        this.prepared = prepared;
+    }
+
+    /**
+     * Gets window of eye sizes of the stream the frame comes from.
+     *
+     * @return eye window.
+     */
+    public ScanWindow getEyeWindow() {
+        return eyeWindow;
+    }
+
+    /**
+     * Sets window of eye sizes of the stream the frame comes from.
+     *
+     * @param eyeWindow eye window.
+     */
+    public void setEyeWindow(final ScanWindow eyeWindow) {
+        this.eyeWindow = eyeWindow;
+    }
+
+    /**
+     * Gets detected faces.
+     *
+     * @return detected faces.
+     */
+    public List<DetectedFace> getFaces() {
+        return faces;
+    }
+
+    /**
+     * Returns all images of the frame to the pool.
+     */
+    public void release() {
+        scoped.forEach(pool::release);
+        scoped.clear();
+        image = null;
+        gray = null;
+        prepared = null;
+        faces.clear();
+    }
+}
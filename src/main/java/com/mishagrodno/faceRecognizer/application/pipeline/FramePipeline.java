@@ -0,0 +1,147 @@
+package com.mishagrodno.faceRecognizer.application.pipeline;
+
+import com.mishagrodno.faceRecognizer.application.MatPool;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The frame processing pipeline.
+ * Stages are connected by bounded queues and run on separate threads, so they overlap instead of
+ * processing every frame one after another.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class FramePipeline {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FramePipeline.class);
+
+    private final String name;
+
+    private final List<PipelineStage> stages;
+
+    private final List<FrameQueue> queues = new ArrayList<>();
+
+    private final List<Thread> threads = new ArrayList<>();
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final long reportInterval;
+
+    private final MatPool pool;
+
+    private final PipelineMeters meters;
+
+    private ScheduledExecutorService reporter;
+
+    /**
+     * Creates pipeline.
+     *
+     * @param name           pipeline name.
+     * @param stages         stages in processing order.
+     * @param queueCapacity  capacity of every queue between stages.
+     * @param dropStale      drop stale frames when a stage falls behind, otherwise process every frame.
+     * @param reportInterval throughput report interval in seconds, 0 to disable.
+     * @param pool           pool of frame images.
+     * @param registry       registry of pipeline meters.
+     */
+    public FramePipeline(final String name, final List<PipelineStage> stages, final int queueCapacity,
+                         final boolean dropStale, final long reportInterval, final MatPool pool,
+                         final MeterRegistry registry) {
+        this.name = name;
+        this.stages = stages;
+        this.reportInterval = reportInterval;
+        this.pool = pool;
+        this.meters = new PipelineMeters(registry, name);
+
+        FrameQueue input = null;
+        PipelineStage upstream = null;
+        for (int i = 0; i < stages.size(); i++) {
+            final FrameQueue output = i == stages.size() - 1 ? null : new FrameQueue(queueCapacity, dropStale);
+            if (output != null) {
+                queues.add(output);
+            }
+            stages.get(i).bind(input, output, upstream, running, pool, meters);
+            input = output;
+            upstream = stages.get(i);
+        }
+        meters.frameRate(stages.get(stages.size() - 1)::getProcessed);
+    }
+
+    /**
+     * Starts all stages.
+     */
+    public void start() {
+        running.set(true);
+
+        stages.forEach(stage -> {
+            final Thread thread = new Thread(stage, name + "-" + stage.getName());
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        });
+
+        if (reportInterval > 0) {
+            reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, name + "-report");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reporter.scheduleAtFixedRate(this::report, reportInterval, reportInterval, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Waits until pipeline is stopped and releases frames left in the queues.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void awaitTermination() throws InterruptedException {
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        if (reporter != null) {
+            reporter.shutdownNow();
+        }
+        queues.forEach(FrameQueue::clear);
+        meters.remove();
+    }
+
+    /**
+     * Stops all stages without processing frames left in the queues.
+     */
+    public void stop() {
+        running.set(false);
+    }
+
+    /**
+     * Gets pipeline name.
+     *
+     * @return name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Is pipeline running.
+     *
+     * @return true if running.
+     */
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    private void report() {
+        stages.forEach(stage -> LOGGER.info("{} {}", name, stage.report(reportInterval)));
+        LOGGER.info("{} {}", name, pool.report());
+    }
+}
@@ -0,0 +1,104 @@
+package com.mishagrodno.faceRecognizer.application.pipeline;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The bounded queue between two pipeline stages.
+ * When the consumer falls behind, the oldest frames are dropped so it always works on fresh ones,
+ * unless the queue is created for processing where no frame may be lost.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class FrameQueue {
+
+    private static final long WAIT_TIMEOUT_MS = 100;
+
+    private final BlockingQueue<FrameContext> queue;
+
+    private final boolean dropStale;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Creates queue.
+     *
+     * @param capacity  capacity.
+     * @param dropStale drop the oldest frames when the queue is full, otherwise wait for free space.
+     */
+    public FrameQueue(final int capacity, final boolean dropStale) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.dropStale = dropStale;
+    }
+
+    /**
+     * Puts frame to the queue.
+     * Stale frames are dropped if the queue is full, or the producer waits while the pipeline is running.
+     *
+     * @param frame   frame.
+     * @param running pipeline running flag.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void offer(final FrameContext frame, final AtomicBoolean running) throws InterruptedException {
+        if (!dropStale) {
+            while (!queue.offer(frame, WAIT_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                if (!running.get()) {
+                    frame.release();
+                    return;
+                }
+            }
+            return;
+        }
+
+        while (!queue.offer(frame)) {
+            final FrameContext stale = queue.poll();
+            if (stale != null) {
+                stale.release();
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Takes frame from the queue.
+     *
+     * @param timeout timeout.
+     * @param unit    timeout unit.
+     * @return frame or null if there was no frame within timeout.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public FrameContext poll(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return queue.poll(timeout, unit);
+    }
+
+    /**
+     * Gets count of frames waiting in the queue.
+     *
+     * @return queue depth.
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * Gets count of dropped frames.
+     *
+     * @return dropped frames.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Releases all waiting frames.
+     */
+    public void clear() {
+        FrameContext frame;
+        while ((frame = queue.poll()) != null) {
+            frame.release();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.mishagrodno.faceRecognizer.application.pipeline;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The frame source hosted by a {@link StreamScheduler}.
+ * Frames are grabbed by the first stage on the stream's own thread and wait in the stream queue,
+ * the other stages run on the shared workers, one frame of the stream at a time.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class FrameStream {
+
+    private final String name;
+
+    private final List<PipelineStage> stages;
+
+    private final FrameQueue queue;
+
+    private final PipelineMeters meters;
+
+    /**
+     * Set while the stream is waiting for a worker or being processed by one.
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private final AtomicLong processed = new AtomicLong();
+
+    private final AtomicLong busyNanos = new AtomicLong();
+
+    private volatile boolean captureDone;
+
+    private long reportedProcessed;
+
+    private long reportedBusyNanos;
+
+    FrameStream(final String name, final List<PipelineStage> stages, final FrameQueue queue,
+                final PipelineMeters meters) {
+        this.name = name;
+        this.stages = stages;
+        this.queue = queue;
+        this.meters = meters;
+    }
+
+    /**
+     * Gets stream name.
+     *
+     * @return name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets count of processed frames.
+     *
+     * @return processed frames.
+     */
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    /**
+     * Gets count of frames dropped because the stream fell behind.
+     *
+     * @return dropped frames.
+     */
+    public long getDropped() {
+        return queue.getDropped();
+    }
+
+    /**
+     * Gets count of frames waiting for processing.
+     *
+     * @return queue depth.
+     */
+    public int getQueued() {
+        return queue.size();
+    }
+
+    /**
+     * Is stream finished.
+     *
+     * @return true if the source has no more frames and all of them are processed.
+     */
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    PipelineStage capture() {
+        return stages.get(0);
+    }
+
+    List<PipelineStage> processing() {
+        return stages.subList(1, stages.size());
+    }
+
+    FrameQueue queue() {
+        return queue;
+    }
+
+    PipelineMeters meters() {
+        return meters;
+    }
+
+    boolean schedule() {
+        return scheduled.compareAndSet(false, true);
+    }
+
+    void unschedule() {
+        scheduled.set(false);
+    }
+
+    boolean isCaptureDone() {
+        return captureDone;
+    }
+
+    void captureDone() {
+        captureDone = true;
+    }
+
+    void processed(final long nanos) {
+        processed.incrementAndGet();
+        busyNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Closes stages and releases waiting frames, only the first call has effect.
+     *
+     * @return true if the stream was closed by this call.
+     */
+    boolean close() {
+        if (!closed.compareAndSet(false, true)) {
+            return false;
+        }
+
+        queue.clear();
+        stages.forEach(PipelineStage::close);
+        meters.remove();
+        return true;
+    }
+
+    /**
+     * Builds throughput report since the previous one.
+     *
+     * @param seconds seconds since the previous report.
+     * @return report.
+     */
+    String report(final double seconds) {
+        final long currentProcessed = processed.get();
+        final long currentBusyNanos = busyNanos.get();
+
+        final long frames = currentProcessed - reportedProcessed;
+        final long nanos = currentBusyNanos - reportedBusyNanos;
+
+        reportedProcessed = currentProcessed;
+        reportedBusyNanos = currentBusyNanos;
+
+        return String.format("stream %s: %.1f fps, %.1f ms/frame, queue %d, dropped %d", name, frames / seconds,
+                frames == 0 ? 0.0 : nanos / 1e6 / frames, queue.size(), queue.getDropped());
+    }
+}
@@ -0,0 +1,134 @@
+package com.mishagrodno.faceRecognizer.application.pipeline;
+
+import io.micrometer.core.instrument.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * The meters of a single pipeline or stream, all of them are tagged with its name.
+ * Gauges follow the pipeline objects and are removed when the pipeline stops, timers are kept,
+ * so a restarted pipeline goes on with the same histograms.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+class PipelineMeters {
+
+    private final MeterRegistry registry;
+
+    private final String pipeline;
+
+    private final Timer frameTimer;
+
+    private final List<Meter> gauges = new ArrayList<>();
+
+    /**
+     * Rates are referenced here, gauges hold them weakly.
+     */
+    private final List<FrameRate> rates = new ArrayList<>();
+
+    PipelineMeters(final MeterRegistry registry, final String pipeline) {
+        this.registry = registry;
+        this.pipeline = pipeline;
+        this.frameTimer = Timer.builder("face.pipeline.frame")
+                .description("Time from frame capture to the end of its processing")
+                .tag("pipeline", pipeline)
+                .register(registry);
+    }
+
+    /**
+     * Gets timer of the stage.
+     *
+     * @param stage stage name.
+     * @return timer.
+     */
+    Timer stage(final String stage) {
+        return Timer.builder("face.pipeline.stage")
+                .description("Time a stage spends on a frame")
+                .tags("pipeline", pipeline, "stage", stage)
+                .register(registry);
+    }
+
+    /**
+     * Registers depth and drops of the stage input queue.
+     *
+     * @param stage stage which takes frames from the queue.
+     * @param queue queue.
+     */
+    void queue(final String stage, final FrameQueue queue) {
+        gauges.add(Gauge.builder("face.pipeline.queue", queue, FrameQueue::size)
+                .description("Frames waiting for the stage")
+                .tags("pipeline", pipeline, "stage", stage)
+                .register(registry));
+        gauges.add(FunctionCounter.builder("face.pipeline.dropped", queue, FrameQueue::getDropped)
+                .description("Frames dropped because the stage fell behind")
+                .tags("pipeline", pipeline, "stage", stage)
+                .register(registry));
+    }
+
+    /**
+     * Registers rate of processed frames.
+     *
+     * @param processed count of processed frames.
+     */
+    void frameRate(final LongSupplier processed) {
+        final FrameRate rate = new FrameRate(processed);
+        rates.add(rate);
+        gauges.add(Gauge.builder("face.pipeline.fps", rate, FrameRate::get)
+                .description("Processed frames per second")
+                .tag("pipeline", pipeline)
+                .register(registry));
+    }
+
+    /**
+     * Records latency of the frame which has passed all stages.
+     *
+     * @param frame frame.
+     */
+    void processed(final FrameContext frame) {
+        frameTimer.record(System.currentTimeMillis() - frame.getStart(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Removes gauges of the pipeline.
+     */
+    void remove() {
+        gauges.forEach(registry::remove);
+        gauges.clear();
+        rates.clear();
+    }
+
+    /**
+     * Frames per second since the previous read, reads closer than a second return the previous rate.
+     */
+    private static class FrameRate {
+
+        private static final long MIN_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+        private final LongSupplier processed;
+
+        private long lastProcessed;
+
+        private long lastNanos = System.nanoTime();
+
+        private double rate;
+
+        private FrameRate(final LongSupplier processed) {
+            this.processed = processed;
+            this.lastProcessed = processed.getAsLong();
+        }
+
+        private synchronized double get() {
+            final long now = System.nanoTime();
+            if (now - lastNanos >= MIN_WINDOW_NANOS) {
+                final long current = processed.getAsLong();
+                rate = (current - lastProcessed) * 1e9 / (now - lastNanos);
+                lastProcessed = current;
+                lastNanos = now;
+            }
+            return rate;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.mishagrodno.faceRecognizer.application.pipeline;
+
+import com.mishagrodno.faceRecognizer.application.MatPool;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The base class of a pipeline stage.
+ * Every stage runs on its own thread, takes frames from the input queue and passes them to the output queue.
+ * The first stage has no input and creates frames, the last stage has no output and releases them.
+ * When the first stage runs out of frames, every next stage finishes after its input queue is drained.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public abstract class PipelineStage implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelineStage.class);
+
+    private static final long POLL_TIMEOUT_MS = 100;
+
+    private final String name;
+
+    private final AtomicLong processed = new AtomicLong();
+
+    private final AtomicLong busyNanos = new AtomicLong();
+
+    private FrameQueue input;
+
+    private FrameQueue output;
+
+    private PipelineStage upstream;
+
+    private AtomicBoolean running;
+
+    private MatPool pool;
+
+    private PipelineMeters meters;
+
+    private Timer timer;
+
+    private volatile boolean finished;
+
+    private long reportedProcessed;
+
+    private long reportedBusyNanos;
+
+    protected PipelineStage(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Processes frame.
+     *
+     * @param frame frame.
+     * @return true if frame should be passed to the next stage, false if it should be dropped.
+     * @throws Exception if processing failed.
+     */
+    protected abstract boolean process(FrameContext frame) throws Exception;
+
+    /**
+     * Releases resources of the stage, called on the stage thread when it stops.
+     */
+    protected void close() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void run() {
+        try {
+            while (running.get() && !finished) {
+                final FrameContext frame = input == null
+                        ? new FrameContext(pool)
+                        : input.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+                if (frame == null) {
+                    if (upstream.isFinished() && input.size() == 0) {
+                        finished = true;
+                    }
+                    continue;
+                }
+
+                boolean forward;
+                try {
+                    forward = handle(frame);
+                } catch (final Exception e) {
+                    LOGGER.error("Stage {} failed: {}", name, e.getLocalizedMessage(), e);
+                    forward = false;
+                }
+
+                if (forward && output != null) {
+                    output.offer(frame, running);
+                } else {
+                    if (output == null) {
+                        meters.processed(frame);
+                    }
+                    frame.release();
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            finished = true;
+            close();
+        }
+    }
+
+    /**
+     * Processes frame and records the time it took.
+     *
+     * @param frame frame.
+     * @return true if frame should be passed to the next stage, false if it should be dropped.
+     * @throws Exception if processing failed.
+     */
+    boolean handle(final FrameContext frame) throws Exception {
+        final long start = System.nanoTime();
+        try {
+            return process(frame);
+        } finally {
+            final long nanos = System.nanoTime() - start;
+            busyNanos.addAndGet(nanos);
+            processed.incrementAndGet();
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Finishes the stage, used by the first stage when it has no more frames.
+     * Next stages finish after processing frames left in their queues.
+     */
+    protected void finish() {
+        finished = true;
+    }
+
+    /**
+     * Is stage finished.
+     *
+     * @return true if finished.
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Gets stage name.
+     *
+     * @return name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets stage input.
+     *
+     * @return input queue or null for the first stage.
+     */
+    public FrameQueue getInput() {
+        return input;
+    }
+
+    /**
+     * Gets count of processed frames.
+     *
+     * @return processed frames.
+     */
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    /**
+     * Builds throughput report since the previous one.
+     *
+     * @param seconds seconds since the previous report.
+     * @return report.
+     */
+    String report(final double seconds) {
+        final long currentProcessed = processed.get();
+        final long currentBusyNanos = busyNanos.get();
+
+        final long frames = currentProcessed - reportedProcessed;
+        final long nanos = currentBusyNanos - reportedBusyNanos;
+
+        reportedProcessed = currentProcessed;
+        reportedBusyNanos = currentBusyNanos;
+
+        return String.format("%s: %.1f fps, %.1f ms/frame, queue %d, dropped %d", name, frames / seconds,
+                frames == 0 ? 0.0 : nanos / 1e6 / frames,
+                input == null ? 0 : input.size(),
+                input == null ? 0 : input.getDropped());
+    }
+
+    /**
+     * Binds stage to the pipeline.
+     *
+     * @param input    input queue.
+     * @param output   output queue.
+     * @param upstream previous stage.
+     * @param running  pipeline running flag.
+     * @param pool     pool of frame images.
+     * @param meters   meters of the pipeline.
+     */
+    void bind(final FrameQueue input, final FrameQueue output, final PipelineStage upstream,
+              final AtomicBoolean running, final MatPool pool, final PipelineMeters meters) {
+        this.input = input;
+        this.output = output;
+        this.upstream = upstream;
+        this.running = running;
+        this.pool = pool;
+        this.meters = meters;
+        this.timer = meters.stage(name);
+        if (input != null) {
+            meters.queue(name, input);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.mishagrodno.faceRecognizer.application.pipeline;
+
+import com.mishagrodno.faceRecognizer.application.FramePreprocessor;
+
+/**
+ * The stage which resizes the frame and prepares it for detection.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class PreprocessStage extends PipelineStage {
+
+    private final FramePreprocessor preprocessor;
+
+    private final double scale;
+
+    /**
+     * Creates preprocess stage.
+     *
+     * @param preprocessor preprocessor.
+     * @param scale        downscale factor of the processed image.
+     */
+    public PreprocessStage(final FramePreprocessor preprocessor, final double scale) {
+        super("preprocess");
+        this.preprocessor = preprocessor;
+        this.scale = scale;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean process(final FrameContext frame) {
+        preprocessor.prepare(frame, scale);
+        return true;
+    }
+}
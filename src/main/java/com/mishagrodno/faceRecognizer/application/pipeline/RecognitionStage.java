@@ -0,0 +1,82 @@
+package com.mishagrodno.faceRecognizer.application.pipeline;
+
+import com.mishagrodno.faceRecognizer.application.FaceTrack;
+import com.mishagrodno.faceRecognizer.application.Recognizer;
+import com.mishagrodno.faceRecognizer.db.entity.HumanEntity;
+import com.mishagrodno.faceRecognizer.db.service.HumanService;
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * The stage which recognizes detected faces.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class RecognitionStage extends PipelineStage {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RecognitionStage.class);
+
+    private final Recognizer recognizer;
+
+    private final HumanService humanService;
+
+    private final AtomicInteger saveRequested;
+
+    private final Consumer<Mat> faceSaver;
+
+    /**
+     * Creates recognition stage.
+     *
+     * @param recognizer    recognizer.
+     * @param humanService  human service.
+     * @param saveRequested count of next detected faces which should be saved.
+     * @param faceSaver     saves face.
+     */
+    public RecognitionStage(final Recognizer recognizer, final HumanService humanService,
+                            final AtomicInteger saveRequested, final Consumer<Mat> faceSaver) {
+        super("recognize");
+        this.recognizer = recognizer;
+        this.humanService = humanService;
+        this.saveRequested = saveRequested;
+        this.faceSaver = faceSaver;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean process(final FrameContext frame) {
+        for (final DetectedFace face : frame.getFaces()) {
+            if (face.getImage() != null && saveRequested.getAndUpdate(count -> Math.max(0, count - 1)) > 0) {
+                faceSaver.accept(face.getImage());
+            }
+
+            // a face which is only tracked keeps the result of its last recognition while the model is the same,
+            // every detected face is recognized again.
+            final FaceTrack track = face.getTrack();
+            final long modelVersion = recognizer.getModel().getVersion();
+            if (face.getImage() == null) {
+                if (track != null && track.isRecognizedBy(modelVersion)) {
+                    face.recognized(track.getName());
+                }
+                continue;
+            }
+
+            final int id = recognizer.recognize(face.getImage());
+            final HumanEntity human = humanService.get((long) id);
+            if (human != null) {
+                face.recognized(human.getName());
+                LOGGER.info("{} recognized", human.getName());
+            }
+            if (track != null) {
+                track.setResult(face.getName(), human != null, modelVersion);
+            }
+        }
+
+        return true;
+    }
+}
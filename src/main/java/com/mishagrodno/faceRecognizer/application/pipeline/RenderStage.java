@@ -0,0 +1,77 @@
+package com.mishagrodno.faceRecognizer.application.pipeline;
+
+import com.mishagrodno.faceRecognizer.application.MainForm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.lang.Math.cos;
+import static java.lang.Math.sin;
+import static org.bytedeco.javacpp.opencv_core.*;
+import static org.bytedeco.javacpp.opencv_imgproc.*;
+
+/**
+ * The stage which draws detected faces and shows the frame on the main form preview.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class RenderStage extends PipelineStage {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RenderStage.class);
+
+    private final MainForm mainForm;
+
+    /**
+     * Creates render stage.
+     *
+     * @param mainForm main form.
+     */
+    public RenderStage(final MainForm mainForm) {
+        super("render");
+        this.mainForm = mainForm;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean process(final FrameContext frame) {
+        final Mat matImage = frame.getImage();
+
+        int recognized = 0;
+        for (final DetectedFace face : frame.getFaces()) {
+            if (face.isRecognized()) {
+                recognized++;
+            }
+            draw(face.getFace(), matImage, face.getAngle(), Scalar.BLUE, face.getName());
+        }
+
+        // the preview copies the frame and repaints on the EDT, so rendering never waits for painting.
+        mainForm.getPreview().update(matImage);
+
+        LOGGER.debug("Faces found: {}, recognized: {}", frame.getFaces().size(), recognized);
+        return true;
+    }
+
+    private void draw(Rect face, Mat image, double angle, Scalar color, String name) {
+
+        if (face.x() < 0 || face.y() < 0) {
+            return;
+        }
+
+        final int x = face.x();
+        final int y = face.y();
+        final int w = face.width();
+        final int h = face.height();
+
+        final Point ru = new Point((int) (x + w * cos(angle)), (int) (y + w * sin(angle)));
+        final Point ld = new Point((int) (x - h * sin(angle)), (int) (y + h * cos(angle)));
+        final Point rd = new Point((int) (ld.x() + w * cos(angle)), (int) (ld.y() + w * sin(angle)));
+
+        line(image, new Point(x, y), ru, color, 3, CV_AA, 0);
+        line(image, new Point(x, y), ld, color, 3, CV_AA, 0);
+        line(image, ld, rd, color, 3, CV_AA, 0);
+        line(image, ru, rd, color, 3, CV_AA, 0);
+
+        putText(image, name, new Point(x, y), FONT_HERSHEY_COMPLEX, 1.0, color);
+    }
+}
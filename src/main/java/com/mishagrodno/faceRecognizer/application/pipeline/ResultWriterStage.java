@@ -0,0 +1,98 @@
+package com.mishagrodno.faceRecognizer.application.pipeline;
+
+import org.bytedeco.javacpp.opencv_core.Rect;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * The stage which writes recognition results as JSON lines, one line per frame.
+ * The writer may be shared by several pipelines, lines are written atomically.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class ResultWriterStage extends PipelineStage {
+
+    private final Writer writer;
+
+    /**
+     * Creates result writer stage.
+     *
+     * @param writer output writer.
+     */
+    public ResultWriterStage(final Writer writer) {
+        super("output");
+        this.writer = writer;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean process(final FrameContext frame) throws IOException {
+        final StringBuilder line = new StringBuilder(128);
+        line.append("{\"source\":");
+        quote(line, frame.getSource());
+        line.append(",\"frame\":").append(frame.getIndex());
+        line.append(",\"timestamp\":").append(frame.getTimestamp());
+        line.append(",\"faces\":[");
+
+        for (int i = 0; i < frame.getFaces().size(); i++) {
+            final DetectedFace face = frame.getFaces().get(i);
+            final Rect rect = face.getFace();
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append("{\"x\":").append(rect.x())
+                    .append(",\"y\":").append(rect.y())
+                    .append(",\"width\":").append(rect.width())
+                    .append(",\"height\":").append(rect.height())
+                    .append(",\"angle\":").append(face.getAngle())
+                    .append(",\"name\":");
+            quote(line, face.getName());
+            line.append(",\"recognized\":").append(face.isRecognized()).append('}');
+        }
+        line.append("]}\n");
+
+        synchronized (writer) {
+            writer.write(line.toString());
+        }
+        return true;
+    }
+
+    private static void quote(final StringBuilder line, final String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+}
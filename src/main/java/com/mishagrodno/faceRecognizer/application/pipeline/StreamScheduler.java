@@ -0,0 +1,246 @@
+package com.mishagrodno.faceRecognizer.application.pipeline;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mishagrodno.faceRecognizer.application.MatPool;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The scheduler which processes many frame streams on a shared pool of workers.
+ * Every stream grabs frames on its own thread into its own bounded queue, so a slow stream only drops or waits
+ * for its own frames. Workers take streams in round robin order and process one frame of a stream per turn,
+ * so busy streams can't starve the others and stages of a stream never run concurrently.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class StreamScheduler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StreamScheduler.class);
+
+    private static final long POLL_TIMEOUT_MS = 100;
+
+    private final List<FrameStream> streams = new ArrayList<>();
+
+    private final List<Thread> captureThreads = new ArrayList<>();
+
+    /**
+     * Streams with waiting frames, in the order they should get a worker.
+     */
+    private final BlockingQueue<FrameStream> ready = new LinkedBlockingQueue<>();
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final int workers;
+
+    private final int queueCapacity;
+
+    private final long reportInterval;
+
+    private final MatPool pool;
+
+    private final MeterRegistry registry;
+
+    private ExecutorService executor;
+
+    private ScheduledExecutorService reporter;
+
+    private CountDownLatch finished;
+
+    /**
+     * Creates scheduler.
+     *
+     * @param workers        count of shared workers.
+     * @param queueCapacity  capacity of every stream queue.
+     * @param reportInterval throughput report interval in seconds, 0 to disable.
+     * @param pool           pool of frame images.
+     * @param registry       registry of stream meters.
+     */
+    public StreamScheduler(final int workers, final int queueCapacity, final long reportInterval, final MatPool pool,
+                           final MeterRegistry registry) {
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+        this.reportInterval = reportInterval;
+        this.pool = pool;
+        this.registry = registry;
+    }
+
+    /**
+     * Adds stream, must be called before start.
+     *
+     * @param name      stream name.
+     * @param stages    stages of the stream, the first one grabs frames.
+     * @param dropStale drop stale frames when the stream falls behind, otherwise wait for the workers.
+     * @return stream.
+     */
+    public FrameStream add(final String name, final List<PipelineStage> stages, final boolean dropStale) {
+        final PipelineMeters meters = new PipelineMeters(registry, name);
+        final FrameStream stream = new FrameStream(name, stages, new FrameQueue(queueCapacity, dropStale), meters);
+        stages.forEach(stage -> stage.bind(null, null, null, running, pool, meters));
+        // the stream queue feeds the first processing stage.
+        meters.queue(stages.get(1).getName(), stream.queue());
+        meters.frameRate(stream::getProcessed);
+        streams.add(stream);
+        return stream;
+    }
+
+    /**
+     * Starts all streams.
+     */
+    public void start() {
+        running.set(true);
+        finished = new CountDownLatch(streams.size());
+
+        executor = Executors.newFixedThreadPool(workers,
+                new ThreadFactoryBuilder().setNameFormat("stream-worker-%d").setDaemon(true).build());
+        for (int i = 0; i < workers; i++) {
+            executor.submit(this::work);
+        }
+
+        streams.forEach(stream -> {
+            final Thread thread = new Thread(() -> capture(stream), stream.getName() + "-capture");
+            thread.setDaemon(true);
+            captureThreads.add(thread);
+            thread.start();
+        });
+
+        if (reportInterval > 0) {
+            reporter = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("stream-report").setDaemon(true).build());
+            reporter.scheduleAtFixedRate(this::report, reportInterval, reportInterval, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Waits until all streams are finished or the scheduler is stopped, and releases their resources.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void awaitTermination() throws InterruptedException {
+        while (running.get() && !finished.await(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            // waits for streams or stop.
+        }
+        running.set(false);
+
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        for (final Thread thread : captureThreads) {
+            thread.join();
+        }
+
+        if (reporter != null) {
+            reporter.shutdownNow();
+        }
+        streams.forEach(FrameStream::close);
+    }
+
+    /**
+     * Stops all streams without processing waiting frames.
+     */
+    public void stop() {
+        running.set(false);
+    }
+
+    /**
+     * Gets hosted streams.
+     *
+     * @return streams.
+     */
+    public List<FrameStream> getStreams() {
+        return Collections.unmodifiableList(streams);
+    }
+
+    private void capture(final FrameStream stream) {
+        final PipelineStage capture = stream.capture();
+        try {
+            while (running.get() && !capture.isFinished()) {
+                final FrameContext frame = new FrameContext(pool);
+
+                boolean forward;
+                try {
+                    forward = capture.handle(frame);
+                } catch (final Exception e) {
+                    LOGGER.error("Stream {} capture failed: {}", stream.getName(), e.getLocalizedMessage(), e);
+                    forward = false;
+                }
+
+                if (!forward) {
+                    frame.release();
+                    continue;
+                }
+
+                stream.queue().offer(frame, running);
+                schedule(stream);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stream.captureDone();
+            // lets a worker close the stream once its queue is drained.
+            schedule(stream);
+        }
+    }
+
+    private void work() {
+        try {
+            while (running.get()) {
+                final FrameStream stream = ready.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (stream == null) {
+                    continue;
+                }
+
+                final FrameContext frame = stream.queue().poll(0, TimeUnit.MILLISECONDS);
+                if (frame != null) {
+                    process(stream, frame);
+                }
+
+                stream.unschedule();
+                if (stream.getQueued() > 0) {
+                    schedule(stream);
+                } else if (stream.isCaptureDone() && stream.close()) {
+                    finished.countDown();
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void process(final FrameStream stream, final FrameContext frame) {
+        final long start = System.nanoTime();
+        try {
+            final List<PipelineStage> stages = stream.processing();
+            int stage = 0;
+            while (stage < stages.size() && stages.get(stage).handle(frame)) {
+                stage++;
+            }
+
+            // frames dropped before the last stage have no end to end latency.
+            if (stage >= stages.size() - 1) {
+                stream.meters().processed(frame);
+            }
+        } catch (final Exception e) {
+            LOGGER.error("Stream {} failed: {}", stream.getName(), e.getLocalizedMessage(), e);
+        } finally {
+            frame.release();
+        }
+        stream.processed(System.nanoTime() - start);
+    }
+
+    private void schedule(final FrameStream stream) {
+        if (stream.schedule()) {
+            ready.add(stream);
+        }
+    }
+
+    private void report() {
+        streams.forEach(stream -> LOGGER.info(stream.report(reportInterval)));
+        LOGGER.info(pool.report());
+    }
+}
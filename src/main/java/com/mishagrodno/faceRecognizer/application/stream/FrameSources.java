@@ -0,0 +1,42 @@
+package com.mishagrodno.faceRecognizer.application.stream;
+
+import com.mishagrodno.faceRecognizer.application.batch.ImageDirectoryGrabber;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.FrameGrabber;
+import org.bytedeco.javacv.OpenCVFrameGrabber;
+
+import java.io.File;
+
+/**
+ * The class which opens frame sources by their description.
+ * A number is a camera index, a directory is a folder of images and anything else is a video file.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class FrameSources {
+
+    /**
+     * Creates not started grabber of the source.
+     *
+     * @param source source description.
+     * @return grabber.
+     */
+    public static FrameGrabber open(final String source) {
+        if (isCamera(source)) {
+            return new OpenCVFrameGrabber(Integer.parseInt(source));
+        }
+
+        final File file = new File(source);
+        return file.isDirectory() ? new ImageDirectoryGrabber(file) : new FFmpegFrameGrabber(file);
+    }
+
+    /**
+     * Is source a camera.
+     *
+     * @param source source description.
+     * @return true if source is a camera index.
+     */
+    public static boolean isCamera(final String source) {
+        return source.matches("\\d+");
+    }
+}
@@ -0,0 +1,103 @@
+package com.mishagrodno.faceRecognizer.application.stream;
+
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.FrameGrabber;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The grabber which plays a file at its frame rate, so it can stand in for a camera.
+ * Audio frames are skipped, the file starts over when it ends if looping is enabled.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class PacedGrabber extends FrameGrabber {
+
+    private final FrameGrabber delegate;
+
+    private final double defaultFrameRate;
+
+    private final boolean loop;
+
+    private long nextFrameNanos;
+
+    /**
+     * Creates grabber.
+     *
+     * @param delegate         file grabber.
+     * @param defaultFrameRate frame rate used when the file has none.
+     * @param loop             start over when the file ends.
+     */
+    public PacedGrabber(final FrameGrabber delegate, final double defaultFrameRate, final boolean loop) {
+        this.delegate = delegate;
+        this.defaultFrameRate = defaultFrameRate;
+        this.loop = loop;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void start() throws Exception {
+        delegate.start();
+        nextFrameNanos = System.nanoTime();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void stop() throws Exception {
+        delegate.stop();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void trigger() throws Exception {
+        delegate.trigger();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Frame grab() throws Exception {
+        final long wait = nextFrameNanos - System.nanoTime();
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+
+        final double frameRate = delegate.getFrameRate() > 0 ? delegate.getFrameRate() : defaultFrameRate;
+        nextFrameNanos = Math.max(nextFrameNanos, System.nanoTime()) + (long) (1e9 / frameRate);
+
+        Frame frame = nextImage();
+        if (frame == null && loop) {
+            delegate.restart();
+            frame = nextImage();
+        }
+        return frame;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void release() throws Exception {
+        delegate.release();
+    }
+
+    private Frame nextImage() throws Exception {
+        Frame frame = delegate.grab();
+        while (frame != null && frame.image == null) {
+            frame = delegate.grab();
+        }
+        return frame;
+    }
+}
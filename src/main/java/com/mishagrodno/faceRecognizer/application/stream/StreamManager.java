@@ -0,0 +1,159 @@
+package com.mishagrodno.faceRecognizer.application.stream;
+
+import com.mishagrodno.faceRecognizer.application.PipelineFactory;
+import com.mishagrodno.faceRecognizer.application.Recognizer;
+import com.mishagrodno.faceRecognizer.application.pipeline.FrameStream;
+import com.mishagrodno.faceRecognizer.application.pipeline.ResultWriterStage;
+import com.mishagrodno.faceRecognizer.application.pipeline.StreamScheduler;
+import org.bytedeco.javacv.FrameGrabber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The manager which hosts many cameras in one process.
+ * All streams share the scheduler workers, the detector and the recognizer model. Video files and image
+ * directories are played at their frame rate, so they can stand in for cameras.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@Component
+public class StreamManager {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StreamManager.class);
+
+    private final PipelineFactory pipelineFactory;
+
+    private final Recognizer recognizer;
+
+    @Value("${streams.sources:}")
+    private String[] sources;
+
+    @Value("${streams.workers:0}")
+    private int workers;
+
+    @Value("${streams.output:streams.jsonl}")
+    private String output;
+
+    @Value("${streams.file.fps:25}")
+    private double fileFrameRate;
+
+    @Value("${streams.file.loop:true}")
+    private boolean loopFiles;
+
+    private volatile StreamScheduler scheduler;
+
+    @Autowired
+    public StreamManager(final PipelineFactory pipelineFactory, final Recognizer recognizer) {
+        this.pipelineFactory = pipelineFactory;
+        this.recognizer = recognizer;
+    }
+
+    /**
+     * Are any streams configured.
+     *
+     * @return true if there are streams to run.
+     */
+    public boolean isConfigured() {
+        for (final String source : sources) {
+            if (!source.trim().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs all configured streams until they end or the application stops.
+     */
+    public void run() {
+        recognizer.init();
+
+        final StreamScheduler current = pipelineFactory.createScheduler(
+                workers > 0 ? workers : Runtime.getRuntime().availableProcessors());
+        final List<FrameGrabber> grabbers = new ArrayList<>();
+
+        try (Writer writer = Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8)) {
+            for (final String description : sources) {
+                if (description.trim().isEmpty()) {
+                    continue;
+                }
+
+                // name=source, or just source.
+                final String[] parts = description.trim().split("=", 2);
+                final String name = parts[0].trim();
+                final String source = parts.length > 1 ? parts[1].trim() : name;
+
+                final FrameGrabber grabber = FrameSources.isCamera(source)
+                        ? FrameSources.open(source)
+                        : new PacedGrabber(FrameSources.open(source), fileFrameRate, loopFiles);
+                try {
+                    grabber.start();
+                } catch (final FrameGrabber.Exception e) {
+                    LOGGER.error("Can't open stream {} from {}: {}", name, source, e.getLocalizedMessage(), e);
+                    continue;
+                }
+                grabbers.add(grabber);
+
+                current.add(name, pipelineFactory.stages(name, grabber, () -> true, true, new AtomicInteger(),
+                        face -> {
+                        }, new ResultWriterStage(writer)), true);
+                LOGGER.info("Stream {} opened from {}", name, source);
+            }
+
+            scheduler = current;
+            current.start();
+            current.awaitTermination();
+        } catch (final IOException e) {
+            LOGGER.error("Can't write {}: {}", output, e.getLocalizedMessage(), e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            scheduler = null;
+            grabbers.forEach(StreamManager::close);
+        }
+    }
+
+    /**
+     * Gets running streams.
+     *
+     * @return streams, empty if nothing is running.
+     */
+    public List<FrameStream> getStreams() {
+        final StreamScheduler current = scheduler;
+        return current == null ? Collections.emptyList() : current.getStreams();
+    }
+
+    /**
+     * Stops all streams.
+     */
+    @PreDestroy
+    public void stop() {
+        final StreamScheduler current = scheduler;
+        if (current != null) {
+            current.stop();
+        }
+    }
+
+    private static void close(final FrameGrabber grabber) {
+        try {
+            grabber.stop();
+            grabber.release();
+        } catch (final FrameGrabber.Exception e) {
+            LOGGER.warn("Can't close grabber: {}", e.getLocalizedMessage());
+        }
+    }
+}
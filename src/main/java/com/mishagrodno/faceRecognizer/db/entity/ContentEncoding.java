@@ -0,0 +1,24 @@
+package com.mishagrodno.faceRecognizer.db.entity;
+
+/**
+ * The encoding of the face content.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public enum ContentEncoding {
+
+    /**
+     * JPEG image.
+     */
+    JPEG,
+
+    /**
+     * Raw pixels, row by row.
+     */
+    RAW,
+
+    /**
+     * Raw pixels compressed with LZ4.
+     */
+    RAW_LZ4
+}
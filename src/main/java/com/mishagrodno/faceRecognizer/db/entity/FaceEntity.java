@@ -2,15 +2,22 @@ package com.mishagrodno.faceRecognizer.db.entity;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.Table;
 import java.sql.Blob;
 
 /**
  * The face entity.
+ * Faces are looked up by their owner, so the owner column is indexed.
  *
  * @author Gomanchuk Mikhail.
  */
 @Entity
+@Table(indexes = @Index(name = "idx_face_owner", columnList = "owner_id"))
 public class FaceEntity extends BaseEntity {
 
     /**
@@ -19,6 +26,13 @@ public class FaceEntity extends BaseEntity {
     @Column(nullable = false)
     private Blob content;
 
+    /**
+     * Content encoding, faces saved before it was introduced are JPEG.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column
+    private ContentEncoding encoding;
+
     /**
      * Type.
      */
@@ -41,6 +55,7 @@ public class FaceEntity extends BaseEntity {
      * Owner.
      */
     @ManyToOne
+    @JoinColumn(name = "owner_id")
     private HumanEntity owner;
 
     public FaceEntity() {
@@ -64,6 +79,24 @@ public class FaceEntity extends BaseEntity {
         this.content = content;
     }
 
+    /**
+     * Gets content encoding.
+     *
+     * @return content encoding.
+     */
+    public ContentEncoding getEncoding() {
+        return encoding == null ? ContentEncoding.JPEG : encoding;
+    }
+
+    /**
+     * Sets content encoding.
+     *
+     * @param encoding content encoding.
+     */
+    public void setEncoding(ContentEncoding encoding) {
+        this.encoding = encoding;
+    }
+
     /**
      * Gets type.
      *
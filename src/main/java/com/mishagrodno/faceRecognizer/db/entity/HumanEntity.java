@@ -2,16 +2,20 @@ package com.mishagrodno.faceRecognizer.db.entity;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.Index;
 import javax.persistence.OneToMany;
+import javax.persistence.Table;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * The HumanEntity entity.
+ * Names are unique, humans are looked up by them.
  *
  * @author Gomanchuk Mikhail.
  */
 @Entity
+@Table(indexes = @Index(name = "idx_human_name", columnList = "name", unique = true))
 public class HumanEntity extends BaseEntity {
 
     /**
@@ -21,9 +25,9 @@ public class HumanEntity extends BaseEntity {
     private String name;
 
     /**
-     * HumanEntity's faces.
+     * HumanEntity's faces, mapped by their owner column and loaded lazily within a session.
      */
-    @OneToMany
+    @OneToMany(mappedBy = "owner")
     private List<FaceEntity> faces = new ArrayList<>();
 
     public HumanEntity() {
@@ -66,11 +70,12 @@ public class HumanEntity extends BaseEntity {
     }
 
     /**
-     * Adds face.
+     * Adds face and makes this human its owner.
      *
      * @param face face.
      */
     public void addFace(final FaceEntity face) {
+        face.setOwner(this);
         if (!faces.contains(face)) {
             faces.add(face);
         }
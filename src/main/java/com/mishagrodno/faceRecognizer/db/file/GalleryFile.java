@@ -0,0 +1,460 @@
+package com.mishagrodno.faceRecognizer.db.file;
+
+import com.mishagrodno.faceRecognizer.db.entity.ContentEncoding;
+import com.mishagrodno.faceRecognizer.db.entity.FaceEntity;
+import com.mishagrodno.faceRecognizer.db.entity.HumanEntity;
+import com.mishagrodno.faceRecognizer.db.service.GalleryVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * The embedded gallery kept in a single append-only file, for nodes which run without a database.
+ * Every change is a record appended to the file: a human, a face with a fixed header (owner id, type, width,
+ * height, encoding) followed by its content, or the deletion of either. On startup the records are replayed,
+ * humans and face headers stay on the heap, while face content stays in the file, which is memory-mapped,
+ * so training decodes faces straight from the mapped pages.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@Component
+@Profile(GalleryFile.PROFILE)
+public class GalleryFile {
+
+    /**
+     * Profile which replaces the database with the gallery file.
+     */
+    public static final String PROFILE = "gallery-file";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GalleryFile.class);
+
+    private static final int MAGIC = 0x47414c46;
+
+    private static final int FORMAT = 1;
+
+    private static final int FILE_HEADER_BYTES = 2 * Integer.BYTES;
+
+    private static final byte HUMAN = 1;
+
+    private static final byte FACE = 2;
+
+    private static final byte HUMAN_DELETED = 3;
+
+    private static final byte FACE_DELETED = 4;
+
+    /**
+     * Record tag and id.
+     */
+    private static final int RECORD_BYTES = 1 + Long.BYTES;
+
+    /**
+     * Owner id, type, width, height, encoding and content length.
+     */
+    private static final int FACE_BYTES = Long.BYTES + 5 * Integer.BYTES;
+
+    /**
+     * Max bytes of a record.
+     */
+    private static final int MAX_RECORD_BYTES = 64 << 20;
+
+    /**
+     * Bytes between starts of two mapped segments. A segment maps one more record beyond its end,
+     * so every record lies in the segment it starts in.
+     */
+    private static final long SEGMENT_BYTES = 1L << 30;
+
+    private final NavigableMap<Long, HumanEntity> humans = new ConcurrentSkipListMap<>();
+
+    private final NavigableMap<Long, FaceEntity> faces = new ConcurrentSkipListMap<>();
+
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    @Value("${gallery.file:gallery.bin}")
+    private String file;
+
+    private FileChannel channel;
+
+    /**
+     * Bytes of complete records in the file.
+     */
+    private long size;
+
+    private long nextId = 1;
+
+    @PostConstruct
+    void open() throws IOException {
+        final long start = System.currentTimeMillis();
+        channel = FileChannel.open(Paths.get(file), CREATE, READ, WRITE);
+        size = channel.size();
+
+        if (size == 0) {
+            final ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES).putInt(MAGIC).putInt(FORMAT);
+            header.flip();
+            append(Collections.singletonList(header));
+        } else {
+            final ByteBuffer header = read(0, FILE_HEADER_BYTES);
+            if (header.getInt() != MAGIC || header.getInt() != FORMAT) {
+                throw new IOException(file + " is not a gallery file");
+            }
+            replay();
+        }
+
+        LOGGER.info("Gallery file {} opened with {} human(s) and {} face(s), took: {}", file, humans.size(),
+                faces.size(), System.currentTimeMillis() - start);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Saves human, a human with an id replaces the saved one.
+     *
+     * @param human human.
+     * @return saved human.
+     */
+    public synchronized HumanEntity saveHuman(final HumanEntity human) {
+        if (human.getId() == null) {
+            human.setId(nextId++);
+        }
+
+        final byte[] name = human.getName().getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES + Integer.BYTES + name.length)
+                .put(HUMAN)
+                .putLong(human.getId())
+                .putInt(name.length)
+                .put(name);
+        record.flip();
+        append(Collections.singletonList(record));
+
+        humans.put(human.getId(), human);
+        return human;
+    }
+
+    /**
+     * Saves faces with a single write, a face with an id replaces the saved one.
+     * Content of saved faces is replaced by the content in the file.
+     *
+     * @param saved faces.
+     */
+    public synchronized void saveFaces(final Collection<FaceEntity> saved) {
+        final List<ByteBuffer> records = new ArrayList<>(saved.size());
+        final List<MappedBlob> contents = new ArrayList<>(saved.size());
+        long position = size;
+
+        for (final FaceEntity face : saved) {
+            final HumanEntity owner = face.getOwner();
+            if (owner == null || owner.getId() == null || !humans.containsKey(owner.getId())) {
+                throw new IllegalArgumentException("Face owner must be saved first");
+            }
+            if (face.getId() == null) {
+                face.setId(nextId++);
+            }
+
+            final byte[] content = bytes(face.getContent());
+            final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES + FACE_BYTES + content.length)
+                    .put(FACE)
+                    .putLong(face.getId())
+                    .putLong(owner.getId())
+                    .putInt(face.getType())
+                    .putInt(face.getWidth())
+                    .putInt(face.getHeight())
+                    .putInt(face.getEncoding().ordinal())
+                    .putInt(content.length)
+                    .put(content);
+            record.flip();
+            if (record.limit() > MAX_RECORD_BYTES) {
+                throw new IllegalArgumentException("Face content of " + content.length + " bytes is too large");
+            }
+
+            records.add(record);
+            contents.add(new MappedBlob(this, position + RECORD_BYTES + FACE_BYTES, content.length));
+            position += record.limit();
+        }
+
+        append(records);
+
+        int i = 0;
+        for (final FaceEntity face : saved) {
+            face.setContent(contents.get(i++));
+            faces.put(face.getId(), face);
+        }
+    }
+
+    /**
+     * Deletes human.
+     *
+     * @param human human.
+     */
+    public synchronized void deleteHuman(final HumanEntity human) {
+        if (human.getId() == null || !humans.containsKey(human.getId())) {
+            return;
+        }
+        if (faces.values().stream().anyMatch(face -> face.getOwner().getId().equals(human.getId()))) {
+            throw new IllegalStateException("Human " + human.getName() + " still has faces");
+        }
+        append(Collections.singletonList(deleted(HUMAN_DELETED, human.getId())));
+        humans.remove(human.getId());
+    }
+
+    /**
+     * Deletes faces with a single write.
+     *
+     * @param deleted faces.
+     */
+    public synchronized void deleteFaces(final Iterable<FaceEntity> deleted) {
+        final List<ByteBuffer> records = new ArrayList<>();
+        final List<Long> ids = new ArrayList<>();
+        for (final FaceEntity face : deleted) {
+            if (face.getId() != null && faces.containsKey(face.getId())) {
+                records.add(deleted(FACE_DELETED, face.getId()));
+                ids.add(face.getId());
+            }
+        }
+
+        append(records);
+        ids.forEach(faces::remove);
+    }
+
+    /**
+     * Gets saved humans.
+     *
+     * @return humans by id, must not be changed.
+     */
+    public NavigableMap<Long, HumanEntity> getHumans() {
+        return humans;
+    }
+
+    /**
+     * Gets saved faces.
+     *
+     * @return faces by id, must not be changed.
+     */
+    public NavigableMap<Long, FaceEntity> getFaces() {
+        return faces;
+    }
+
+    /**
+     * Gets version of the faces up to the face with given id.
+     *
+     * @param id id.
+     * @return version.
+     */
+    public GalleryVersion version(final long id) {
+        GalleryVersion version = GalleryVersion.EMPTY;
+        for (final FaceEntity face : faces.headMap(id, true).values()) {
+            version = version.plus(face.getId(), face.getOwner().getId());
+        }
+        return version;
+    }
+
+    /**
+     * Maps part of the file.
+     *
+     * @param offset offset of the part.
+     * @param length length of the part.
+     * @return direct buffer over the part.
+     * @throws IOException if the file can't be mapped.
+     */
+    synchronized ByteBuffer slice(final long offset, final int length) throws IOException {
+        if (offset + length > size) {
+            throw new EOFException("Gallery file is truncated at " + offset);
+        }
+
+        final int index = (int) (offset / SEGMENT_BYTES);
+        final long start = index * SEGMENT_BYTES;
+        while (segments.size() <= index) {
+            segments.add(null);
+        }
+
+        MappedByteBuffer segment = segments.get(index);
+        if (segment == null || start + segment.capacity() < offset + length) {
+            // the segment was mapped before the record was appended, so it's mapped again up to the file end.
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                    Math.min(size, start + SEGMENT_BYTES + MAX_RECORD_BYTES) - start);
+            segments.set(index, segment);
+        }
+
+        final ByteBuffer slice = segment.duplicate();
+        slice.position((int) (offset - start));
+        slice.limit((int) (offset - start) + length);
+        return slice.slice();
+    }
+
+    private void replay() throws IOException {
+        long position = FILE_HEADER_BYTES;
+        while (position < size) {
+            try {
+                position = replay(position);
+            } catch (final EOFException e) {
+                // the last record was cut off or left unwritten, e.g. zero-filled, when the node crashed.
+                LOGGER.warn("Gallery file {} ends with a partial record at {}, {} byte(s) are dropped", file,
+                        position, size - position);
+                channel.truncate(position);
+                size = position;
+                segments.clear();
+            }
+        }
+    }
+
+    /**
+     * Applies the record.
+     *
+     * @param position record position.
+     * @return position of the next record.
+     */
+    private long replay(final long position) throws IOException {
+        final ByteBuffer record = read(position, RECORD_BYTES);
+        final byte tag = record.get();
+        final long id = record.getLong();
+        if (tag < HUMAN || tag > FACE_DELETED || id <= 0) {
+            throw malformed(position);
+        }
+        nextId = Math.max(nextId, id + 1);
+
+        switch (tag) {
+            case HUMAN: {
+                final int length = length(read(position + RECORD_BYTES, Integer.BYTES).getInt(), position);
+                final byte[] name = new byte[length];
+                read(position + RECORD_BYTES + Integer.BYTES, length).get(name);
+
+                final HumanEntity human = humans.getOrDefault(id, new HumanEntity());
+                human.setId(id);
+                human.setName(new String(name, StandardCharsets.UTF_8));
+                humans.put(id, human);
+                return position + RECORD_BYTES + Integer.BYTES + length;
+            }
+            case FACE: {
+                final ByteBuffer header = read(position + RECORD_BYTES, FACE_BYTES);
+                final long ownerId = header.getLong();
+                final FaceEntity face = new FaceEntity();
+                face.setId(id);
+                face.setType(header.getInt());
+                face.setWidth(header.getInt());
+                face.setHeight(header.getInt());
+                final int encoding = header.getInt();
+                if (encoding < 0 || encoding >= ContentEncoding.values().length) {
+                    throw malformed(position);
+                }
+                face.setEncoding(ContentEncoding.values()[encoding]);
+
+                final int length = length(header.getInt(), position);
+                final long contentOffset = position + RECORD_BYTES + FACE_BYTES;
+                if (contentOffset + length > size) {
+                    throw new EOFException();
+                }
+                face.setContent(new MappedBlob(this, contentOffset, length));
+
+                face.setOwner(humans.get(ownerId));
+                if (face.getOwner() == null) {
+                    LOGGER.warn("Face {} has no owner {}, it is skipped", id, ownerId);
+                } else {
+                    faces.put(id, face);
+                }
+                return contentOffset + length;
+            }
+            case HUMAN_DELETED:
+                humans.remove(id);
+                return position + RECORD_BYTES;
+            case FACE_DELETED:
+                faces.remove(id);
+                return position + RECORD_BYTES;
+            default:
+                throw malformed(position);
+        }
+    }
+
+    /**
+     * Checks length of the record data.
+     *
+     * @param length   length.
+     * @param position record position.
+     * @return length.
+     * @throws EOFException if the file never has records of such length.
+     */
+    private int length(final int length, final long position) throws EOFException {
+        if (length < 0 || length > MAX_RECORD_BYTES) {
+            throw malformed(position);
+        }
+        return length;
+    }
+
+    /**
+     * Creates the error of a record the file never has, it is dropped with the rest of the file like a partial one.
+     */
+    private EOFException malformed(final long position) {
+        return new EOFException("Malformed record at " + position + " of " + file);
+    }
+
+    private ByteBuffer read(final long position, final int length) throws IOException {
+        if (position + length > size) {
+            throw new EOFException();
+        }
+        return slice(position, length);
+    }
+
+    private static ByteBuffer deleted(final byte tag, final long id) {
+        final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES).put(tag).putLong(id);
+        record.flip();
+        return record;
+    }
+
+    /**
+     * Appends records and flushes them to the disk. If any record fails, all of them are cut off,
+     * so the file always ends with a complete record.
+     */
+    private void append(final List<ByteBuffer> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        final long start = size;
+        try {
+            for (final ByteBuffer record : records) {
+                while (record.hasRemaining()) {
+                    size += channel.write(record, size);
+                }
+            }
+            channel.force(false);
+        } catch (final IOException e) {
+            size = start;
+            try {
+                channel.truncate(start);
+            } catch (final IOException ignored) {
+            }
+            throw new UncheckedIOException("Can't write to gallery file " + file, e);
+        }
+    }
+
+    private static byte[] bytes(final Blob content) {
+        try {
+            return content.getBytes(1, (int) content.length());
+        } catch (final SQLException e) {
+            throw new IllegalArgumentException("Can't read face content", e);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.mishagrodno.faceRecognizer.db.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+/**
+ * The read-only face content which lies in the memory-mapped gallery file.
+ * Content is never copied to the heap unless its bytes are asked for, decoders take the mapped buffer itself.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class MappedBlob implements Blob {
+
+    private final GalleryFile gallery;
+
+    private final long offset;
+
+    private final int length;
+
+    MappedBlob(final GalleryFile gallery, final long offset, final int length) {
+        this.gallery = gallery;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Gets content as a direct buffer over the mapped file.
+     *
+     * @return buffer positioned at the content start, it may be used by a single thread.
+     * @throws SQLException if the file can't be mapped.
+     */
+    public ByteBuffer getBuffer() throws SQLException {
+        try {
+            return gallery.slice(offset, length);
+        } catch (final IOException e) {
+            throw new SQLException("Can't map face content at " + offset, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long length() {
+        return length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] getBytes(final long pos, final int length) throws SQLException {
+        if (pos < 1 || pos - 1 + length > this.length) {
+            throw new SQLException("Range " + pos + "+" + length + " is out of " + this.length + " bytes");
+        }
+        final ByteBuffer buffer = getBuffer();
+        buffer.position((int) pos - 1);
+
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream getBinaryStream() throws SQLException {
+        return new ByteArrayInputStream(getBytes(1, length));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream getBinaryStream(final long pos, final long length) throws SQLException {
+        return new ByteArrayInputStream(getBytes(pos, (int) length));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long position(final byte[] pattern, final long start) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long position(final Blob pattern, final long start) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int setBytes(final long pos, final byte[] bytes) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Face content in the gallery file is read-only");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int setBytes(final long pos, final byte[] bytes, final int offset, final int len) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Face content in the gallery file is read-only");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OutputStream setBinaryStream(final long pos) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Face content in the gallery file is read-only");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void truncate(final long len) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Face content in the gallery file is read-only");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void free() {
+    }
+}
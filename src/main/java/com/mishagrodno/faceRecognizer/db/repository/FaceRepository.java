@@ -1,12 +1,65 @@
-package com.mishagrodno.faceRecognizer.db.repository;
-
-import com.mishagrodno.faceRecognizer.db.entity.FaceEntity;
-import org.springframework.data.repository.PagingAndSortingRepository;
-
-/**
- * The Face repository.
- *
- * @author Gomanchuk Mikhail.
- */
-public interface FaceRepository extends PagingAndSortingRepository<FaceEntity, Long> {
-}
+package com.mishagrodno.faceRecognizer.db.repository;
+
+import com.mishagrodno.faceRecognizer.db.entity.FaceEntity;
+import com.mishagrodno.faceRecognizer.db.entity.HumanEntity;
+import com.mishagrodno.faceRecognizer.db.service.FaceSample;
+import com.mishagrodno.faceRecognizer.db.service.GalleryVersion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/**
+ * The Face repository.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public interface FaceRepository extends PagingAndSortingRepository<FaceEntity, Long> {
+
+    /**
+     * First step of {@link GalleryVersion#hash} of a face.
+     */
+    String FACE_HASH = "mod(f.id * " + GalleryVersion.ID_FACTOR + " + f.owner.id * " + GalleryVersion.OWNER_FACTOR
+            + " + 1, " + GalleryVersion.HASH_MODULUS + ")";
+
+    /**
+     * Finds faces saved after the face with given id.
+     *
+     * @param id       id.
+     * @param pageable page.
+     * @return faces ordered by id.
+     */
+    List<FaceEntity> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Finds samples of faces saved after the face with given id, owners are taken by their ids and aren't read.
+     *
+     * @param id       id.
+     * @param pageable page.
+     * @return samples ordered by face id.
+     */
+    @Query("select new com.mishagrodno.faceRecognizer.db.service.FaceSample(f.id, f.owner.id, f.encoding, f.type, "
+            + "f.width, f.height, f.content) from FaceEntity f where f.id > :id order by f.id")
+    List<FaceSample> findSamplesAfter(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * Finds faces of the human.
+     *
+     * @param owner owner.
+     * @return faces ordered by id.
+     */
+    List<FaceEntity> findByOwnerOrderByIdAsc(HumanEntity owner);
+
+    /**
+     * Calculates version of the faces up to the face with given id, the faces themselves aren't read.
+     *
+     * @param id id.
+     * @return version of the faces with ids not greater than the given one.
+     */
+    @Query("select new com.mishagrodno.faceRecognizer.db.service.GalleryVersion(count(f), coalesce(max(f.id), 0), "
+            + "coalesce(sum(f.id), 0), coalesce(sum(mod(" + FACE_HASH + " * " + FACE_HASH + " + " + FACE_HASH
+            + ", " + GalleryVersion.HASH_MODULUS + ")), 0)) from FaceEntity f where f.id <= :id")
+    GalleryVersion versionUpTo(@Param("id") Long id);
+}
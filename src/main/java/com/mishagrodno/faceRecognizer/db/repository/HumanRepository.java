@@ -1,7 +1,10 @@
 package com.mishagrodno.faceRecognizer.db.repository;
 
 import com.mishagrodno.faceRecognizer.db.entity.HumanEntity;
+import com.mishagrodno.faceRecognizer.db.service.HumanName;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 
 /**
  * The Human repository.
@@ -11,10 +14,12 @@ import org.springframework.data.repository.PagingAndSortingRepository;
 public interface HumanRepository extends PagingAndSortingRepository<HumanEntity, Long> {
 
     /**
-     * Finds human by name.
+     * Finds id and name of the human with given name, only the unique name index is read.
      *
-     * @param name name
-     * @return human.
+     * @param name name.
+     * @return id and name or null if there is no such human.
      */
-    HumanEntity findByName(String name);
+    @Query("select new com.mishagrodno.faceRecognizer.db.service.HumanName(h.id, h.name) "
+            + "from HumanEntity h where h.name = :name")
+    HumanName findNameByName(@Param("name") String name);
 }
@@ -0,0 +1,113 @@
+package com.mishagrodno.faceRecognizer.db.service;
+
+import com.mishagrodno.faceRecognizer.db.entity.ContentEncoding;
+
+import java.sql.Blob;
+
+/**
+ * The saved face as the recognizer is trained on it: its content with what is needed to decode it and the id of
+ * its owner. It is read without the face entity and its owner, so training doesn't load humans.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public final class FaceSample {
+
+    private final long id;
+
+    private final long ownerId;
+
+    private final ContentEncoding encoding;
+
+    private final Integer type;
+
+    private final Integer width;
+
+    private final Integer height;
+
+    private final Blob content;
+
+    /**
+     * Creates sample.
+     *
+     * @param id       face id.
+     * @param ownerId  owner id.
+     * @param encoding content encoding, null for faces saved before it was introduced.
+     * @param type     image type.
+     * @param width    image width.
+     * @param height   image height.
+     * @param content  content.
+     */
+    public FaceSample(final Long id, final Long ownerId, final ContentEncoding encoding, final Integer type,
+                      final Integer width, final Integer height, final Blob content) {
+        this.id = id;
+        this.ownerId = ownerId;
+        this.encoding = encoding;
+        this.type = type;
+        this.width = width;
+        this.height = height;
+        this.content = content;
+    }
+
+    /**
+     * Gets face id.
+     *
+     * @return face id.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gets owner id.
+     *
+     * @return owner id.
+     */
+    public long getOwnerId() {
+        return ownerId;
+    }
+
+    /**
+     * Gets content encoding.
+     *
+     * @return content encoding.
+     */
+    public ContentEncoding getEncoding() {
+        return encoding == null ? ContentEncoding.JPEG : encoding;
+    }
+
+    /**
+     * Gets image type.
+     *
+     * @return image type.
+     */
+    public Integer getType() {
+        return type;
+    }
+
+    /**
+     * Gets image width.
+     *
+     * @return image width.
+     */
+    public Integer getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets image height.
+     *
+     * @return image height.
+     */
+    public Integer getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets content.
+     *
+     * @return content.
+     */
+    public Blob getContent() {
+        return content;
+    }
+}
@@ -1,54 +1,108 @@
-package com.mishagrodno.faceRecognizer.db.service;
-
-import com.mishagrodno.faceRecognizer.db.entity.FaceEntity;
-import com.mishagrodno.faceRecognizer.db.entity.HumanEntity;
-
-/**
- * The face service interface.
- *
- * @author Gomanchuk Mikhail.
- */
-public interface FaceService {
-
-    /**
-     * Saves face.
-     *
-     * @param face face.
-     * @return saved face.
-     */
-    FaceEntity save(FaceEntity face);
-
-    /**
-     * Creates new face.
-     *
-     * @param name    name.
-     * @param type    type.
-     * @param height  height.
-     * @param width   width.
-     * @param content content.
-     * @param owner   owner.
-     */
-    FaceEntity create(String name, Integer type, Integer height, Integer width, byte[] content, HumanEntity owner);
-
-    /**
-     * Gets face by id.
-     *
-     * @param id id.
-     * @return face.
-     */
-    FaceEntity get(Long id);
-
-    /**
-     * Deletes face.
-     *
-     * @param face face.
-     */
-    void delete(FaceEntity face);
-
-    /**
-     * Gets all faces.
-     *
-     * @return all faces.
-     */
-    Iterable<FaceEntity> all();
-}
+package com.mishagrodno.faceRecognizer.db.service;
+
+import com.mishagrodno.faceRecognizer.db.entity.ContentEncoding;
+import com.mishagrodno.faceRecognizer.db.entity.FaceEntity;
+import com.mishagrodno.faceRecognizer.db.entity.HumanEntity;
+
+import java.util.List;
+
+/**
+ * The face service interface.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public interface FaceService {
+
+    /**
+     * Saves face.
+     *
+     * @param face face.
+     * @return saved face.
+     */
+    FaceEntity save(FaceEntity face);
+
+    /**
+     * Saves faces in one transaction, inserts are sent to the database in JDBC batches.
+     *
+     * @param faces faces.
+     * @return saved faces.
+     */
+    Iterable<FaceEntity> saveAll(Iterable<FaceEntity> faces);
+
+    /**
+     * Creates new face.
+     *
+     * @param name     name.
+     * @param type     type.
+     * @param height   height.
+     * @param width    width.
+     * @param content  content.
+     * @param encoding content encoding.
+     * @param owner    owner.
+     */
+    FaceEntity create(String name, Integer type, Integer height, Integer width, byte[] content,
+                      ContentEncoding encoding, HumanEntity owner);
+
+    /**
+     * Gets face by id.
+     *
+     * @param id id.
+     * @return face.
+     */
+    FaceEntity get(Long id);
+
+    /**
+     * Deletes face.
+     *
+     * @param face face.
+     */
+    void delete(FaceEntity face);
+
+    /**
+     * Deletes faces in one transaction.
+     *
+     * @param faces faces.
+     */
+    void deleteAll(Iterable<FaceEntity> faces);
+
+    /**
+     * Gets all faces.
+     *
+     * @return all faces.
+     */
+    Iterable<FaceEntity> all();
+
+    /**
+     * Gets faces saved after the face with given id.
+     *
+     * @param id    id.
+     * @param limit max count of faces.
+     * @return faces ordered by id.
+     */
+    List<FaceEntity> allAfter(Long id, int limit);
+
+    /**
+     * Gets samples of faces saved after the face with given id, for training.
+     *
+     * @param id    id.
+     * @param limit max count of samples.
+     * @return samples ordered by face id.
+     */
+    List<FaceSample> samplesAfter(Long id, int limit);
+
+    /**
+     * Gets faces of the human.
+     *
+     * @param owner owner.
+     * @return faces ordered by id.
+     */
+    List<FaceEntity> allOf(HumanEntity owner);
+
+    /**
+     * Gets version of the faces up to the face with given id.
+     *
+     * @param id id.
+     * @return version of the faces with ids not greater than the given one.
+     */
+    GalleryVersion version(Long id);
+}
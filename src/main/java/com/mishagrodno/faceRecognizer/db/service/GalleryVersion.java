@@ -0,0 +1,153 @@
+package com.mishagrodno.faceRecognizer.db.service;
+
+/**
+ * The version of the saved faces up to some face.
+ * It changes when a face is added, deleted or given to another human, so a model trained on the faces
+ * can tell if it still matches the database without reading them. Besides the count and sums it keeps the sum of
+ * face hashes, which mix the face id with its owner id, so faces swapping their owners or replaced by faces with
+ * other ids of the same sum change it too. The hash is calculated by the database as well, see {@link #hash}.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public final class GalleryVersion {
+
+    /**
+     * Version of an empty gallery.
+     */
+    public static final GalleryVersion EMPTY = new GalleryVersion(0L, 0L, 0L, 0L);
+
+    /**
+     * Modulus of the face hash, a prime below 2^31, so squares of hashes fit into a signed 64-bit integer.
+     */
+    public static final long HASH_MODULUS = 2147483647L;
+
+    /**
+     * Multiplier of the face id in the face hash.
+     */
+    public static final long ID_FACTOR = 40503L;
+
+    /**
+     * Multiplier of the owner id in the face hash.
+     */
+    public static final long OWNER_FACTOR = 9973L;
+
+    private final long count;
+
+    private final long lastFaceId;
+
+    private final long idSum;
+
+    private final long checksum;
+
+    /**
+     * Creates version.
+     *
+     * @param count      count of faces.
+     * @param lastFaceId greatest face id.
+     * @param idSum      sum of face ids.
+     * @param checksum   sum of face hashes.
+     */
+    public GalleryVersion(final Long count, final Long lastFaceId, final Long idSum, final Long checksum) {
+        this.count = count;
+        this.lastFaceId = lastFaceId;
+        this.idSum = idSum;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Calculates hash of a face: {@code h = (id * ID_FACTOR + ownerId * OWNER_FACTOR + 1) mod HASH_MODULUS},
+     * then {@code (h * h + h) mod HASH_MODULUS}. Only positive integer arithmetic is used, so the database
+     * calculates the same hash.
+     *
+     * @param faceId  id of the face.
+     * @param ownerId id of its owner.
+     * @return hash, less than the modulus.
+     */
+    public static long hash(final long faceId, final long ownerId) {
+        final long h = (faceId * ID_FACTOR + ownerId * OWNER_FACTOR + 1) % HASH_MODULUS;
+        return (h * h + h) % HASH_MODULUS;
+    }
+
+    /**
+     * Gets version with one more face.
+     *
+     * @param faceId  id of the face, greater than all previous ones.
+     * @param ownerId id of its owner.
+     * @return version.
+     */
+    public GalleryVersion plus(final long faceId, final long ownerId) {
+        return new GalleryVersion(count + 1, faceId, idSum + faceId, checksum + hash(faceId, ownerId));
+    }
+
+    /**
+     * Gets count of faces.
+     *
+     * @return count of faces.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets greatest face id.
+     *
+     * @return face id, 0 if there are no faces.
+     */
+    public long getLastFaceId() {
+        return lastFaceId;
+    }
+
+    /**
+     * Gets sum of face ids.
+     *
+     * @return sum of face ids.
+     */
+    public long getIdSum() {
+        return idSum;
+    }
+
+    /**
+     * Gets sum of face hashes.
+     *
+     * @return sum of face hashes.
+     */
+    public long getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof GalleryVersion)) {
+            return false;
+        }
+        final GalleryVersion other = (GalleryVersion) o;
+        return count == other.count && lastFaceId == other.lastFaceId && idSum == other.idSum
+                && checksum == other.checksum;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = Long.hashCode(count);
+        result = 31 * result + Long.hashCode(lastFaceId);
+        result = 31 * result + Long.hashCode(idSum);
+        result = 31 * result + Long.hashCode(checksum);
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return count + " face(s) up to " + lastFaceId;
+    }
+}
@@ -0,0 +1,42 @@
+package com.mishagrodno.faceRecognizer.db.service;
+
+/**
+ * The id and the name of a saved human, read from the unique name index without the human entity.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public final class HumanName {
+
+    private final long id;
+
+    private final String name;
+
+    /**
+     * Creates human name.
+     *
+     * @param id   human id.
+     * @param name human name.
+     */
+    public HumanName(final Long id, final String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    /**
+     * Gets human id.
+     *
+     * @return human id.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gets human name.
+     *
+     * @return human name.
+     */
+    public String getName() {
+        return name;
+    }
+}
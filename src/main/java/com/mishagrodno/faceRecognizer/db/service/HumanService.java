@@ -41,6 +41,11 @@ public interface HumanService {
      */
     void delete(HumanEntity human);
 
+    /**
+     * Drops cached humans and reads them again, after the database was changed not through the service.
+     */
+    void refresh();
+
     /**
      * Gets all humans.
      *
@@ -0,0 +1,147 @@
+package com.mishagrodno.faceRecognizer.db.service.impl;
+
+import com.mishagrodno.faceRecognizer.db.entity.ContentEncoding;
+import com.mishagrodno.faceRecognizer.db.entity.FaceEntity;
+import com.mishagrodno.faceRecognizer.db.entity.HumanEntity;
+import com.mishagrodno.faceRecognizer.db.file.GalleryFile;
+import com.mishagrodno.faceRecognizer.db.service.FaceService;
+import com.mishagrodno.faceRecognizer.db.service.FaceSample;
+import com.mishagrodno.faceRecognizer.db.service.GalleryVersion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import javax.sql.rowset.serial.SerialBlob;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The {@link FaceService} backed by the {@link GalleryFile}, used instead of the database by its profile.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@Service
+@Profile(GalleryFile.PROFILE)
+public class GalleryFileFaceService implements FaceService {
+
+    private final GalleryFile gallery;
+
+    @Autowired
+    public GalleryFileFaceService(final GalleryFile gallery) {
+        this.gallery = gallery;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FaceEntity save(final FaceEntity face) {
+        gallery.saveFaces(Collections.singletonList(face));
+        return face;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FaceEntity> saveAll(final Iterable<FaceEntity> faces) {
+        final List<FaceEntity> saved = new ArrayList<>();
+        faces.forEach(saved::add);
+        gallery.saveFaces(saved);
+        return saved;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FaceEntity create(final String name, final Integer type, final Integer height, final Integer width,
+                             final byte[] content, final ContentEncoding encoding, final HumanEntity owner) {
+        try {
+            final FaceEntity faceEntity = new FaceEntity();
+            faceEntity.setContent(new SerialBlob(content));
+            faceEntity.setEncoding(encoding);
+            faceEntity.setOwner(owner);
+            faceEntity.setType(type);
+            faceEntity.setHeight(height);
+            faceEntity.setWidth(width);
+            return save(faceEntity);
+        } catch (final SQLException e) {
+            throw new IllegalArgumentException("Can't read face content", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FaceEntity get(final Long id) {
+        return gallery.getFaces().get(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete(final FaceEntity face) {
+        gallery.deleteFaces(Collections.singletonList(face));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteAll(final Iterable<FaceEntity> faces) {
+        gallery.deleteFaces(faces);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FaceEntity> all() {
+        return new ArrayList<>(gallery.getFaces().values());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<FaceEntity> allAfter(final Long id, final int limit) {
+        return gallery.getFaces().tailMap(id, false).values().stream()
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<FaceSample> samplesAfter(final Long id, final int limit) {
+        return allAfter(id, limit).stream()
+                .map(face -> new FaceSample(face.getId(), face.getOwner().getId(), face.getEncoding(), face.getType(),
+                        face.getWidth(), face.getHeight(), face.getContent()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<FaceEntity> allOf(final HumanEntity owner) {
+        return gallery.getFaces().values().stream()
+                .filter(face -> face.getOwner().getId().equals(owner.getId()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public GalleryVersion version(final Long id) {
+        return gallery.version(id);
+    }
+}
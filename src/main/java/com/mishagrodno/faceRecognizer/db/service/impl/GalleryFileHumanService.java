@@ -0,0 +1,110 @@
+package com.mishagrodno.faceRecognizer.db.service.impl;
+
+import com.mishagrodno.faceRecognizer.db.entity.FaceEntity;
+import com.mishagrodno.faceRecognizer.db.entity.HumanEntity;
+import com.mishagrodno.faceRecognizer.db.file.GalleryFile;
+import com.mishagrodno.faceRecognizer.db.service.HumanService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Objects;
+
+/**
+ * The {@link HumanService} backed by the {@link GalleryFile}, used instead of the database by its profile.
+ * All humans are kept in memory, so lookups never read the file.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+@Service
+@Profile(GalleryFile.PROFILE)
+public class GalleryFileHumanService implements HumanService {
+
+    private final GalleryFile gallery;
+
+    @Autowired
+    public GalleryFileHumanService(final GalleryFile gallery) {
+        this.gallery = gallery;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public HumanEntity save(final HumanEntity human) {
+        return gallery.saveHuman(human);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public HumanEntity get(final Long id) {
+        if (id == null || id <= 0) {
+            return null;
+        }
+        return gallery.getHumans().get(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized HumanEntity getOrCreate(final String name) {
+        final HumanEntity existing = gallery.getHumans().values().stream()
+                .filter(human -> human.getName().equals(name))
+                .findFirst()
+                .orElse(null);
+        if (existing != null) {
+            return existing;
+        }
+
+        final HumanEntity human = new HumanEntity();
+        human.setName(name);
+        return gallery.saveHuman(human);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete(final HumanEntity human) {
+        gallery.deleteHuman(human);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void refresh() {
+        // humans are kept by the gallery file itself, which is changed only through the services.
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<HumanEntity> all() {
+        return new ArrayList<>(gallery.getHumans().values());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addFace(final FaceEntity face, final HumanEntity human) {
+        // faces are found by their owner, the human keeps no list of them.
+        face.setOwner(human);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeFace(final FaceEntity face, final HumanEntity human) {
+        if (human != null && face.getOwner() != null && Objects.equals(face.getOwner().getId(), human.getId())) {
+            face.setOwner(null);
+        }
+    }
+}
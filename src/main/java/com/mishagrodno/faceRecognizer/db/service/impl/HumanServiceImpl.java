@@ -2,21 +2,33 @@ package com.mishagrodno.faceRecognizer.db.service.impl;
 
 import com.mishagrodno.faceRecognizer.db.entity.FaceEntity;
 import com.mishagrodno.faceRecognizer.db.entity.HumanEntity;
+import com.mishagrodno.faceRecognizer.db.file.GalleryFile;
 import com.mishagrodno.faceRecognizer.db.repository.HumanRepository;
+import com.mishagrodno.faceRecognizer.db.service.HumanName;
 import com.mishagrodno.faceRecognizer.db.service.HumanService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Main implementation for {@link HumanService}.
+ * Humans are cached by id, so lookups of recognized humans don't go to the database.
  *
  * @author Gomanchuk Mikhail.
  */
 @Service
+@Profile("!" + GalleryFile.PROFILE)
 public class HumanServiceImpl implements HumanService {
 
     private final HumanRepository humanRepository;
 
+    private final Map<Long, HumanEntity> humans = new ConcurrentHashMap<>();
+
     /**
      * {@inheritDoc}
      */
@@ -25,12 +37,20 @@ public class HumanServiceImpl implements HumanService {
         this.humanRepository = humanRepository;
     }
 
+    /**
+     * Warms up the cache with all humans.
+     */
+    @PostConstruct
+    void warmUp() {
+        humanRepository.findAll().forEach(this::cache);
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public HumanEntity save(final HumanEntity human) {
-        return humanRepository.save(human);
+        return cache(humanRepository.save(human));
     }
 
     /**
@@ -38,19 +58,40 @@ public class HumanServiceImpl implements HumanService {
      */
     @Override
     public HumanEntity get(final Long id) {
-        return humanRepository.findById(id).orElse(null);
+        if (id == null || id <= 0) {
+            return null;
+        }
+
+        final HumanEntity human = humans.get(id);
+        if (human != null) {
+            return human;
+        }
+
+        return humanRepository.findById(id).map(this::cache).orElse(null);
     }
 
+    /**
+     * {@inheritDoc}
+     */
     @Override
-    public HumanEntity getOrCreate(final String name) {
-        HumanEntity human = humanRepository.findByName(name);
-        if (human == null) {
-            human = new HumanEntity();
-            human.setName(name);
-            humanRepository.save(human);
+    public synchronized HumanEntity getOrCreate(final String name) {
+        final HumanName saved = humanRepository.findNameByName(name);
+        if (saved != null) {
+            final HumanEntity cached = humans.get(saved.getId());
+            if (cached != null) {
+                return cached;
+            }
+
+            // the human is only referenced as the owner of faces, so it isn't read.
+            final HumanEntity human = new HumanEntity();
+            human.setId(saved.getId());
+            human.setName(saved.getName());
+            return cache(human);
         }
 
-        return human;
+        final HumanEntity human = new HumanEntity();
+        human.setName(name);
+        return cache(humanRepository.save(human));
     }
 
     /**
@@ -59,6 +100,18 @@ public class HumanServiceImpl implements HumanService {
     @Override
     public void delete(HumanEntity human) {
         humanRepository.delete(human);
+        if (human.getId() != null) {
+            humans.remove(human.getId());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void refresh() {
+        humans.clear();
+        warmUp();
     }
 
     /**
@@ -74,9 +127,8 @@ public class HumanServiceImpl implements HumanService {
      */
     @Override
     public void addFace(final FaceEntity face, final HumanEntity human) {
-        if (human != null) {
-            human.addFace(face);
-        }
+        // only the owner of the face is saved, faces of cached humans aren't loaded for it.
+        face.setOwner(human);
     }
 
     /**
@@ -84,8 +136,15 @@ public class HumanServiceImpl implements HumanService {
      */
     @Override
     public void removeFace(FaceEntity face, HumanEntity human) {
-        if (human != null) {
-            human.deleteFace(face);
+        if (human != null && face.getOwner() != null && Objects.equals(face.getOwner().getId(), human.getId())) {
+            face.setOwner(null);
         }
     }
+
+    private HumanEntity cache(final HumanEntity human) {
+        if (human != null && human.getId() != null) {
+            humans.put(human.getId(), human);
+        }
+        return human;
+    }
 }
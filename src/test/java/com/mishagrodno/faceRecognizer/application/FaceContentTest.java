@@ -0,0 +1,95 @@
+package com.mishagrodno.faceRecognizer.application;
+
+import com.mishagrodno.faceRecognizer.db.entity.ContentEncoding;
+import com.mishagrodno.faceRecognizer.db.entity.FaceEntity;
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.junit.Test;
+
+import javax.sql.rowset.serial.SerialBlob;
+import java.sql.SQLException;
+
+import static org.bytedeco.javacpp.opencv_core.CV_8UC1;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link FaceContent}.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class FaceContentTest {
+
+    private static final int ROWS = 120;
+
+    private static final int COLS = 100;
+
+    @Test
+    public void rawContentIsDecodedExactly() throws SQLException {
+        assertArrayEquals(pixels(), decoded(ContentEncoding.RAW));
+    }
+
+    @Test
+    public void lz4ContentIsDecodedExactly() throws SQLException {
+        assertArrayEquals(pixels(), decoded(ContentEncoding.RAW_LZ4));
+    }
+
+    @Test
+    public void jpegContentIsDecodedClose() throws SQLException {
+        final byte[] expected = pixels();
+        final byte[] actual = decoded(ContentEncoding.JPEG);
+
+        assertEquals(expected.length, actual.length);
+        long difference = 0;
+        for (int i = 0; i < expected.length; i++) {
+            difference += Math.abs((expected[i] & 0xFF) - (actual[i] & 0xFF));
+        }
+        assertTrue("mean difference " + difference / (double) expected.length,
+                difference < 4L * expected.length);
+    }
+
+    @Test
+    public void lz4ContentIsSmallerThanRaw() {
+        final Mat image = image();
+        assertTrue(FaceContent.encode(image, ContentEncoding.RAW_LZ4).length
+                < FaceContent.encode(image, ContentEncoding.RAW).length);
+    }
+
+    private static byte[] decoded(final ContentEncoding encoding) throws SQLException {
+        final Mat image = image();
+        final FaceEntity face = new FaceEntity();
+        face.setContent(new SerialBlob(FaceContent.encode(image, encoding)));
+        face.setEncoding(encoding);
+        face.setType(image.type());
+        face.setWidth(image.cols());
+        face.setHeight(image.rows());
+
+        final Mat decoded = FaceContent.decode(face);
+        assertEquals(ROWS, decoded.rows());
+        assertEquals(COLS, decoded.cols());
+        assertEquals(CV_8UC1, decoded.type());
+
+        final byte[] pixels = new byte[ROWS * COLS];
+        decoded.data().get(pixels);
+        return pixels;
+    }
+
+    private static Mat image() {
+        final Mat image = new Mat(ROWS, COLS, CV_8UC1);
+        image.data().put(pixels());
+        return image;
+    }
+
+    /**
+     * Smooth gradient, so JPEG keeps it close and LZ4 finds repeats in it.
+     */
+    private static byte[] pixels() {
+        final byte[] pixels = new byte[ROWS * COLS];
+        for (int row = 0; row < ROWS; row++) {
+            for (int col = 0; col < COLS; col++) {
+                pixels[row * COLS + col] = (byte) ((row + col) / 2);
+            }
+        }
+        return pixels;
+    }
+}
@@ -0,0 +1,123 @@
+package com.mishagrodno.faceRecognizer.application;
+
+import com.mishagrodno.faceRecognizer.application.index.ExactIndex;
+import com.mishagrodno.faceRecognizer.application.index.FaceIndex;
+import com.mishagrodno.faceRecognizer.application.index.GraphIndex;
+import com.mishagrodno.faceRecognizer.db.service.GalleryVersion;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link ModelSnapshots}.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class ModelSnapshotsTest {
+
+    private static final int DIMENSIONS = 32;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final Random random = new Random(3);
+
+    @Test
+    public void exactModelIsReadBack() throws IOException {
+        assertReadBack(new ExactIndex(DIMENSIONS));
+    }
+
+    @Test
+    public void graphModelIsReadBack() throws IOException {
+        assertReadBack(new GraphIndex(DIMENSIONS, 8, 50, 50));
+    }
+
+    @Test
+    public void snapshotOfOtherDimensionsIsIgnored() throws IOException {
+        final ModelSnapshots snapshots = snapshots(folder.newFile());
+        assertTrue(snapshots.save(model(new ExactIndex(DIMENSIONS))));
+
+        assertNull(snapshots.load(DIMENSIONS * 2, 50));
+    }
+
+    @Test
+    public void brokenSnapshotIsIgnored() throws IOException {
+        final File file = folder.newFile();
+        final ModelSnapshots snapshots = snapshots(file);
+        assertNull(snapshots.load(DIMENSIONS, 50));
+
+        assertTrue(snapshots.save(model(new ExactIndex(DIMENSIONS))));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() / 2);
+        }
+        assertNull(snapshots.load(DIMENSIONS, 50));
+
+        Files.write(file.toPath(), new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+        assertNull(snapshots.load(DIMENSIONS, 50));
+    }
+
+    @Test
+    public void snapshotIsDisabledWithoutFile() {
+        final ModelSnapshots snapshots = new ModelSnapshots();
+        ReflectionTestUtils.setField(snapshots, "file", "");
+
+        assertTrue(!snapshots.isEnabled());
+        assertTrue(!snapshots.save(model(new ExactIndex(DIMENSIONS))));
+        assertNull(snapshots.load(DIMENSIONS, 50));
+    }
+
+    private void assertReadBack(final FaceIndex index) throws IOException {
+        final ModelSnapshots snapshots = snapshots(new File(folder.getRoot(), "model.snapshot"));
+        final RecognitionModel saved = model(index);
+        assertTrue(snapshots.save(saved));
+
+        final RecognitionModel read = snapshots.load(DIMENSIONS, 50);
+        assertNotNull(read);
+        assertEquals(saved.getVersion(), read.getVersion());
+        assertEquals(saved.getGallery(), read.getGallery());
+        assertEquals(saved.size(), read.size());
+        assertEquals(index.getClass(), read.getIndex().getClass());
+
+        for (int i = 0; i < 20; i++) {
+            final float[] query = vector();
+            assertEquals(index.search(query, 1).get(0).getLabel(), read.getIndex().search(query, 1).get(0).getLabel());
+            assertEquals(index.search(query, 1).get(0).getDistance(), read.getIndex().search(query, 1).get(0)
+                    .getDistance(), 1e-6);
+        }
+    }
+
+    private RecognitionModel model(final FaceIndex index) {
+        GalleryVersion gallery = GalleryVersion.EMPTY;
+        for (int i = 1; i <= 100; i++) {
+            index.add(vector(), i % 7);
+            gallery = gallery.plus(i, i % 7);
+        }
+        return new RecognitionModel(index, gallery, 5);
+    }
+
+    private float[] vector() {
+        final float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = random.nextFloat();
+        }
+        return vector;
+    }
+
+    private static ModelSnapshots snapshots(final File file) {
+        final ModelSnapshots snapshots = new ModelSnapshots();
+        ReflectionTestUtils.setField(snapshots, "file", file.getPath());
+        return snapshots;
+    }
+}
@@ -0,0 +1,190 @@
+package com.mishagrodno.faceRecognizer.application;
+
+import com.mishagrodno.faceRecognizer.db.entity.ContentEncoding;
+import com.mishagrodno.faceRecognizer.db.service.FaceSample;
+import com.mishagrodno.faceRecognizer.db.service.FaceService;
+import com.mishagrodno.faceRecognizer.db.service.GalleryVersion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacpp.opencv_core.Scalar;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.rowset.serial.SerialBlob;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.bytedeco.javacpp.opencv_core.CV_8UC1;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests of {@link Recognizer} training on a stubbed gallery.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class RecognizerTest {
+
+    private static final int ROWS = 40;
+
+    private static final int COLS = 40;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final Random random = new Random(5);
+
+    private final List<FaceSample> gallery = new ArrayList<>();
+
+    private final List<Recognizer> recognizers = new ArrayList<>();
+
+    private FaceService faceService;
+
+    private ModelSnapshots snapshots;
+
+    @Before
+    public void setUp() throws SQLException {
+        faceService = mock(FaceService.class);
+        when(faceService.samplesAfter(anyLong(), anyInt())).thenAnswer(invocation -> {
+            final long id = invocation.getArgument(0);
+            final int limit = invocation.getArgument(1);
+            return gallery.stream()
+                    .filter(sample -> sample.getId() > id)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        });
+        when(faceService.version(anyLong())).thenAnswer(invocation -> version(invocation.getArgument(0)));
+
+        snapshots = new ModelSnapshots();
+        ReflectionTestUtils.setField(snapshots, "file", folder.getRoot().toPath().resolve("model.snapshot")
+                .toString());
+
+        for (long id = 1; id <= 5; id++) {
+            gallery.add(sample(id, id % 2 + 1));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        recognizers.forEach(Recognizer::destroy);
+    }
+
+    @Test
+    public void restoresSnapshotOfUnchangedGallery() {
+        train();
+        clearInvocations(faceService);
+
+        final Recognizer restored = recognizer();
+        restored.init();
+
+        assertEquals(5, restored.getModel().size());
+        verify(faceService, never()).samplesAfter(eq(0L), anyInt());
+    }
+
+    @Test
+    public void retrainsWhenGalleryChangedUnderSnapshot() {
+        train();
+        // a face the snapshot knows is given to another human.
+        gallery.set(2, sampleOf(gallery.get(2), 7));
+        clearInvocations(faceService);
+
+        final Recognizer restored = recognizer();
+        restored.init();
+
+        assertEquals(5, restored.getModel().size());
+        verify(faceService, atLeastOnce()).samplesAfter(eq(0L), anyInt());
+    }
+
+    @Test
+    public void retrainsWhenFaceIsSavedBelowLastKnownId() throws SQLException {
+        final Recognizer recognizer = recognizer();
+        recognizer.init();
+        gallery.add(sample(60, 1));
+        assertEquals(6, recognizer.update().join().size());
+
+        // another node saves a face with an id from its own pool.
+        gallery.add(sample(8, 2));
+        gallery.sort(Comparator.comparingLong(FaceSample::getId));
+
+        assertEquals(7, recognizer.update().join().size());
+    }
+
+    @Test
+    public void publishesEmptyModelWhenAllFacesAreDeleted() {
+        final Recognizer recognizer = recognizer();
+        recognizer.init();
+        final long trained = recognizer.getModel().getVersion();
+
+        gallery.clear();
+        final RecognitionModel empty = recognizer.retrain().join();
+
+        assertEquals(0, empty.size());
+        assertEquals(trained + 1, empty.getVersion());
+        assertEquals(-1, recognizer.recognize(new Mat(ROWS, COLS, CV_8UC1, new Scalar(128))));
+    }
+
+    @Test
+    public void recognitionOfEmptyModelIsTimed() {
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        final Recognizer recognizer = new Recognizer(faceService, snapshots, registry);
+
+        assertEquals(-1, recognizer.recognize(new Mat(ROWS, COLS, CV_8UC1, new Scalar(128))));
+
+        assertEquals(1, registry.get("face.recognize").timer().count());
+    }
+
+    /**
+     * Trains a recognizer and stops it, so its snapshot is written.
+     */
+    private void train() {
+        final Recognizer recognizer = recognizer();
+        recognizer.init();
+        recognizer.destroy();
+    }
+
+    private Recognizer recognizer() {
+        final Recognizer recognizer = new Recognizer(faceService, snapshots, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(recognizer, "pageSize", 2);
+        ReflectionTestUtils.setField(recognizer, "indexType", "exact");
+        ReflectionTestUtils.setField(recognizer, "snapshotInterval", 300L);
+        recognizers.add(recognizer);
+        return recognizer;
+    }
+
+    private GalleryVersion version(final long id) {
+        GalleryVersion version = GalleryVersion.EMPTY;
+        for (final FaceSample sample : gallery) {
+            if (sample.getId() <= id) {
+                version = version.plus(sample.getId(), sample.getOwnerId());
+            }
+        }
+        return version;
+    }
+
+    private FaceSample sample(final long id, final long ownerId) throws SQLException {
+        final byte[] pixels = new byte[ROWS * COLS];
+        random.nextBytes(pixels);
+        return new FaceSample(id, ownerId, ContentEncoding.RAW, CV_8UC1, COLS, ROWS, new SerialBlob(pixels));
+    }
+
+    private static FaceSample sampleOf(final FaceSample sample, final long ownerId) {
+        return new FaceSample(sample.getId(), ownerId, sample.getEncoding(), sample.getType(), sample.getWidth(),
+                sample.getHeight(), sample.getContent());
+    }
+}
@@ -0,0 +1,85 @@
+package com.mishagrodno.faceRecognizer.application;
+
+import org.bytedeco.javacpp.opencv_core.Rect;
+import org.bytedeco.javacpp.opencv_core.Size;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link ScanWindow}.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class ScanWindowTest {
+
+    private static final Size IMAGE = new Size(640, 480);
+
+    @Test
+    public void scansFullRangeWithoutCalibration() {
+        final ScanWindow window = new ScanWindow(1.1, 3, 20, 300, false, 10);
+        learn(window);
+
+        final ScanWindow.Scan scan = window.next(IMAGE);
+        assertTrue(scan.isFull());
+        assertEquals(20, scan.getMin().width());
+        assertEquals(300, scan.getMax().width());
+        assertEquals(300, scan.getMax().height());
+    }
+
+    @Test
+    public void narrowsRangeToLearnedSizes() {
+        final ScanWindow window = new ScanWindow(1.1, 3, 20, 0, true, 10);
+        learn(window);
+
+        final ScanWindow.Scan scan = window.next(IMAGE);
+        assertFalse(scan.isFull());
+        assertEquals(40, scan.getMin().width());
+        assertEquals(48, scan.getMin().height());
+        assertEquals(60, scan.getMax().width());
+        assertEquals(72, scan.getMax().height());
+    }
+
+    @Test
+    public void scansFullRangePeriodically() {
+        final ScanWindow window = new ScanWindow(1.1, 3, 20, 0, true, 4);
+        learn(window);
+
+        int full = 0;
+        for (int i = 0; i < 8; i++) {
+            final ScanWindow.Scan scan = window.next(IMAGE);
+            window.record(scan, Collections.singletonList(new Rect(0, 0, 50, 60)));
+            if (scan.isFull()) {
+                full++;
+            }
+        }
+        assertEquals(2, full);
+    }
+
+    @Test
+    public void scansFullRangeAfterMisses() {
+        final ScanWindow window = new ScanWindow(1.1, 3, 20, 0, true, 100);
+        learn(window);
+
+        for (int i = 0; i < 3; i++) {
+            final ScanWindow.Scan scan = window.next(IMAGE);
+            assertFalse(scan.isFull());
+            window.record(scan, Collections.emptyList());
+        }
+        assertTrue(window.next(IMAGE).isFull());
+    }
+
+    /**
+     * Records enough full scans with 50 x 60 faces to learn the window.
+     */
+    private static void learn(final ScanWindow window) {
+        for (int i = 0; i < 30; i++) {
+            final ScanWindow.Scan scan = window.next(IMAGE);
+            window.record(scan, Collections.singletonList(new Rect(0, 0, 50, 60)));
+        }
+    }
+}
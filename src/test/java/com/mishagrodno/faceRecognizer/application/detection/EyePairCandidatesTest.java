@@ -0,0 +1,66 @@
+package com.mishagrodno.faceRecognizer.application.detection;
+
+import org.bytedeco.javacpp.opencv_core.Rect;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link EyePairCandidates}.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class EyePairCandidatesTest {
+
+    private final EyePairCandidates engine = new EyePairCandidates(0.5, 45);
+
+    @Test
+    public void pairsLevelEyes() {
+        final List<EyePairCandidates.Candidate> candidates = engine.rank(Arrays.asList(
+                new Rect(100, 100, 20, 20), new Rect(132, 100, 20, 20)));
+
+        assertEquals(1, candidates.size());
+        final EyePairCandidates.Candidate candidate = candidates.get(0);
+        assertEquals(0, candidate.getFirst());
+        assertEquals(1, candidate.getSecond());
+        assertEquals(0, candidate.getAngle(), 1e-9);
+        assertEquals(100, candidate.getSpan().x());
+        assertEquals(52, candidate.getSpan().width());
+    }
+
+    @Test
+    public void rejectsImplausiblePairs() {
+        // too different in size.
+        assertTrue(engine.rank(Arrays.asList(new Rect(100, 100, 30, 30), new Rect(140, 100, 10, 10))).isEmpty());
+        // too far apart.
+        assertTrue(engine.rank(Arrays.asList(new Rect(100, 100, 20, 20), new Rect(200, 100, 20, 20))).isEmpty());
+        // the same eye detected twice.
+        assertTrue(engine.rank(Arrays.asList(new Rect(100, 100, 20, 20), new Rect(105, 100, 20, 20))).isEmpty());
+        // too steep.
+        assertTrue(engine.rank(Arrays.asList(new Rect(100, 100, 20, 20), new Rect(110, 130, 20, 20))).isEmpty());
+        // a single eye.
+        assertTrue(engine.rank(Collections.singletonList(new Rect(100, 100, 20, 20))).isEmpty());
+    }
+
+    @Test
+    public void ranksMostPlausiblePairFirst() {
+        final List<EyePairCandidates.Candidate> candidates = engine.rank(Arrays.asList(
+                new Rect(100, 100, 20, 20),
+                new Rect(132, 100, 20, 20),
+                new Rect(125, 115, 16, 16),
+                new Rect(400, 300, 20, 20)));
+
+        assertTrue(candidates.size() > 1);
+        assertEquals(0, candidates.get(0).getFirst());
+        assertEquals(1, candidates.get(0).getSecond());
+        for (int i = 1; i < candidates.size(); i++) {
+            assertTrue(candidates.get(i - 1).getScore() <= candidates.get(i).getScore());
+            assertTrue(candidates.get(i).getFirst() != 3 && candidates.get(i).getSecond() != 3);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.mishagrodno.faceRecognizer.application.index;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of {@link ExactIndex} and {@link GraphIndex} on a small gallery.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class FaceIndexTest {
+
+    private static final int DIMENSIONS = 64;
+
+    private static final int HUMANS = 20;
+
+    private static final int FACES = 10;
+
+    private final Random random = new Random(1);
+
+    private final List<float[]> centers = new ArrayList<>();
+
+    @Test
+    public void exactIndexFindsNearestEntry() {
+        final List<float[]> gallery = gallery();
+        final ExactIndex index = new ExactIndex(DIMENSIONS);
+        for (int i = 0; i < gallery.size(); i++) {
+            index.add(gallery.get(i), i);
+        }
+
+        for (int q = 0; q < 50; q++) {
+            final float[] query = near(centers.get(q % HUMANS));
+            final List<Neighbor> found = index.search(query, 3);
+
+            assertEquals(3, found.size());
+            assertEquals(nearest(gallery, query), found.get(0).getLabel());
+            assertEquals(distance(query, gallery.get(found.get(0).getLabel())), found.get(0).getDistance(), 1e-3);
+        }
+    }
+
+    @Test
+    public void graphIndexFindsSameHumanAsExactIndex() {
+        final List<float[]> gallery = gallery();
+        final ExactIndex exact = new ExactIndex(DIMENSIONS);
+        final GraphIndex graph = new GraphIndex(DIMENSIONS, 8, 100, 100);
+        for (int i = 0; i < gallery.size(); i++) {
+            exact.add(gallery.get(i), i / FACES);
+            graph.add(gallery.get(i), i / FACES);
+        }
+
+        for (int q = 0; q < 50; q++) {
+            final float[] query = near(centers.get(q % HUMANS));
+            assertEquals(exact.search(query, 1).get(0).getLabel(), graph.search(query, 1).get(0).getLabel());
+        }
+    }
+
+    @Test
+    public void copiesAreIndependent() {
+        final List<float[]> gallery = gallery();
+        final GraphIndex graph = new GraphIndex(DIMENSIONS, 8, 100, 100);
+        final ExactIndex exact = new ExactIndex(DIMENSIONS);
+        final int half = gallery.size() / 2;
+        for (int i = 0; i < half; i++) {
+            graph.add(gallery.get(i), i / FACES);
+            exact.add(gallery.get(i), i / FACES);
+        }
+
+        final FaceIndex graphCopy = graph.copy();
+        final FaceIndex exactCopy = exact.copy();
+        for (int i = half; i < gallery.size(); i++) {
+            graphCopy.add(gallery.get(i), i / FACES);
+            exactCopy.add(gallery.get(i), i / FACES);
+        }
+
+        assertEquals(half, graph.size());
+        assertEquals(half, exact.size());
+        assertEquals(gallery.size(), graphCopy.size());
+        for (int human = 0; human < HUMANS; human++) {
+            final float[] query = near(centers.get(human));
+            final int expected = human < HUMANS / 2 ? human : exact.search(query, 1).get(0).getLabel();
+            assertEquals(expected, graph.search(query, 1).get(0).getLabel());
+            assertEquals(human, graphCopy.search(query, 1).get(0).getLabel());
+            assertEquals(human, exactCopy.search(query, 1).get(0).getLabel());
+        }
+    }
+
+    /**
+     * Creates faces of every human around its own center, faces of a human are consecutive.
+     */
+    private List<float[]> gallery() {
+        for (int human = 0; human < HUMANS; human++) {
+            final float[] center = new float[DIMENSIONS];
+            for (int i = 0; i < DIMENSIONS; i++) {
+                center[i] = random.nextFloat();
+            }
+            centers.add(center);
+        }
+
+        final List<float[]> gallery = new ArrayList<>();
+        for (int human = 0; human < HUMANS; human++) {
+            for (int face = 0; face < FACES; face++) {
+                gallery.add(near(centers.get(human)));
+            }
+        }
+        return gallery;
+    }
+
+    private float[] near(final float[] center) {
+        final float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = Math.max(0, center[i] + (random.nextFloat() - 0.5f) * 0.05f);
+        }
+        return vector;
+    }
+
+    private static int nearest(final List<float[]> gallery, final float[] query) {
+        int nearest = -1;
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < gallery.size(); i++) {
+            final double distance = distance(query, gallery.get(i));
+            if (distance < best) {
+                best = distance;
+                nearest = i;
+            }
+        }
+        return nearest;
+    }
+
+    private static double distance(final float[] a, final float[] b) {
+        return ChiSquare.distance(a, 0, b, 0, a.length, Double.MAX_VALUE);
+    }
+}
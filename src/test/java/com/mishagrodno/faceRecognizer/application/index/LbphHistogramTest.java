@@ -0,0 +1,110 @@
+package com.mishagrodno.faceRecognizer.application.index;
+
+import org.bytedeco.javacpp.DoublePointer;
+import org.bytedeco.javacpp.IntPointer;
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacpp.opencv_core.MatVector;
+import org.bytedeco.javacpp.opencv_face.LBPHFaceRecognizer;
+import org.junit.Test;
+
+import java.nio.IntBuffer;
+import java.util.Random;
+
+import static org.bytedeco.javacpp.opencv_core.CV_32SC1;
+import static org.bytedeco.javacpp.opencv_core.CV_8UC1;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that {@link LbphHistogram} and {@link ChiSquare} give the same predictions as OpenCV LBPH.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class LbphHistogramTest {
+
+    private static final int ROWS = 120;
+
+    private static final int COLS = 100;
+
+    private static final int FACES = 6;
+
+    /**
+     * Distance above which a face isn't recognized, the one the recognizer uses.
+     */
+    private static final double THRESHOLD = 60;
+
+    private final Random random = new Random(7);
+
+    @Test
+    public void matchesOpenCvPrediction() {
+        final byte[][] gallery = new byte[FACES][];
+        for (int i = 0; i < FACES; i++) {
+            gallery[i] = face();
+        }
+
+        final LBPHFaceRecognizer lbph = LBPHFaceRecognizer.create(1, 8, 8, 8, THRESHOLD);
+        final MatVector images = new MatVector(FACES);
+        final Mat labels = new Mat(FACES, 1, CV_32SC1);
+        final IntBuffer labelBuffer = labels.createBuffer();
+        final ExactIndex index = new ExactIndex(LbphHistogram.DIMENSIONS);
+        for (int i = 0; i < FACES; i++) {
+            images.put(i, mat(gallery[i]));
+            labelBuffer.put(i, i);
+            index.add(LbphHistogram.extract(gallery[i], ROWS, COLS), i);
+        }
+        lbph.train(images, labels);
+
+        for (int i = 0; i < FACES; i++) {
+            // a slightly changed gallery face is recognized, an unrelated one isn't.
+            assertSamePrediction(lbph, index, noisy(gallery[i], 4));
+            assertSamePrediction(lbph, index, face());
+        }
+    }
+
+    private static void assertSamePrediction(final LBPHFaceRecognizer lbph, final ExactIndex index,
+                                             final byte[] query) {
+        final IntPointer label = new IntPointer(1);
+        final DoublePointer confidence = new DoublePointer(1);
+        lbph.predict(mat(query), label, confidence);
+
+        final Neighbor nearest = index.search(LbphHistogram.extract(query, ROWS, COLS), 1).get(0);
+        final int predicted = nearest.getDistance() > THRESHOLD ? -1 : nearest.getLabel();
+
+        assertEquals(label.get(), predicted);
+        if (predicted >= 0) {
+            assertEquals(confidence.get(), nearest.getDistance(), 1e-3 * confidence.get());
+        }
+    }
+
+    /**
+     * Creates a smooth random image, so its local binary patterns aren't just noise.
+     */
+    private byte[] face() {
+        final double fx = 0.05 + random.nextDouble() * 0.2;
+        final double fy = 0.05 + random.nextDouble() * 0.2;
+        final double phase = random.nextDouble() * Math.PI;
+        final byte[] pixels = new byte[ROWS * COLS];
+        for (int row = 0; row < ROWS; row++) {
+            for (int col = 0; col < COLS; col++) {
+                final double value = 128 + 60 * Math.sin(col * fx + phase) + 60 * Math.cos(row * fy)
+                        + random.nextInt(8);
+                pixels[row * COLS + col] = (byte) Math.max(0, Math.min(255, value));
+            }
+        }
+        return pixels;
+    }
+
+    private byte[] noisy(final byte[] pixels, final int amplitude) {
+        final byte[] result = new byte[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            final int value = (pixels[i] & 0xFF) + random.nextInt(2 * amplitude + 1) - amplitude;
+            result[i] = (byte) Math.max(0, Math.min(255, value));
+        }
+        return result;
+    }
+
+    private static Mat mat(final byte[] pixels) {
+        final Mat mat = new Mat(ROWS, COLS, CV_8UC1);
+        mat.data().put(pixels);
+        return mat;
+    }
+}
@@ -0,0 +1,40 @@
+package com.mishagrodno.faceRecognizer.application.index;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of {@link TopK}.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class TopKTest {
+
+    @Test
+    public void keepsNearestEntriesInOrder() {
+        final VectorStore store = new VectorStore(1);
+        for (int i = 0; i < 6; i++) {
+            store.add(new float[]{i}, i * 10);
+        }
+
+        final TopK left = new TopK(3);
+        left.offer(0, 5);
+        left.offer(1, 1);
+        left.offer(2, 4);
+        final TopK right = new TopK(3);
+        right.offer(3, 3);
+        right.offer(4, 0.5);
+        right.offer(5, 9);
+        left.merge(right);
+
+        final List<Neighbor> neighbors = left.toNeighbors(store);
+        assertEquals(3, neighbors.size());
+        assertEquals(40, neighbors.get(0).getLabel());
+        assertEquals(10, neighbors.get(1).getLabel());
+        assertEquals(30, neighbors.get(2).getLabel());
+        assertEquals(3, left.bound(), 0);
+    }
+}
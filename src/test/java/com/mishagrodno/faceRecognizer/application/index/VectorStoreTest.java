@@ -0,0 +1,67 @@
+package com.mishagrodno.faceRecognizer.application.index;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link VectorStore}.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class VectorStoreTest {
+
+    private static final int DIMENSIONS = 4;
+
+    @Test
+    public void newStoreTakesSmallBlock() {
+        final VectorStore store = new VectorStore(LbphHistogram.DIMENSIONS);
+        store.add(new float[LbphHistogram.DIMENSIONS], 1);
+
+        assertTrue(store.block(0).length < 1 << 20);
+    }
+
+    @Test
+    public void copiesDontSeeEachOtherEntries() {
+        final VectorStore source = new VectorStore(DIMENSIONS);
+        for (int i = 0; i < 20; i++) {
+            source.add(vector(i), i);
+        }
+
+        final VectorStore first = new VectorStore(source);
+        final VectorStore second = new VectorStore(source);
+        for (int i = 0; i < 30; i++) {
+            first.add(vector(100 + i), 100 + i);
+            second.add(vector(200 + i), 200 + i);
+        }
+        source.add(vector(300), 300);
+
+        assertEntries(source, 0, 20, 0);
+        assertEntries(first, 0, 20, 0);
+        assertEntries(second, 0, 20, 0);
+        assertEntries(first, 20, 50, 80);
+        assertEntries(second, 20, 50, 180);
+        assertEquals(300, source.label(20));
+        assertEquals(300, source.block(20)[source.offset(20)], 0);
+        assertEquals(21, source.size());
+        assertEquals(50, first.size());
+    }
+
+    private static void assertEntries(final VectorStore store, final int from, final int to, final int shift) {
+        for (int id = from; id < to; id++) {
+            assertEquals(id + shift, store.label(id));
+            for (int i = 0; i < DIMENSIONS; i++) {
+                assertEquals(id + shift + i, store.block(id)[store.offset(id) + i], 0);
+            }
+        }
+    }
+
+    private static float[] vector(final int value) {
+        final float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = value + i;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,80 @@
+package com.mishagrodno.faceRecognizer.application.pipeline;
+
+import com.mishagrodno.faceRecognizer.application.MatPool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link FrameQueue}.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class FrameQueueTest {
+
+    private final MatPool pool = new MatPool(new SimpleMeterRegistry());
+
+    private final AtomicBoolean running = new AtomicBoolean(true);
+
+    @Test
+    public void dropsOldestFramesWhenFull() throws InterruptedException {
+        final FrameQueue queue = new FrameQueue(2, true);
+        for (int i = 0; i < 5; i++) {
+            queue.offer(frame(i), running);
+        }
+
+        assertEquals(2, queue.size());
+        assertEquals(3, queue.getDropped());
+        assertEquals(3, queue.poll(1, TimeUnit.SECONDS).getIndex());
+        assertEquals(4, queue.poll(1, TimeUnit.SECONDS).getIndex());
+    }
+
+    @Test
+    public void waitsForFreeSpaceWithoutDropping() throws InterruptedException {
+        final FrameQueue queue = new FrameQueue(1, false);
+        queue.offer(frame(0), running);
+
+        final CountDownLatch offered = new CountDownLatch(1);
+        final Thread producer = new Thread(() -> {
+            try {
+                queue.offer(frame(1), running);
+                offered.countDown();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+
+        assertFalse(offered.await(300, TimeUnit.MILLISECONDS));
+        assertEquals(0, queue.poll(1, TimeUnit.SECONDS).getIndex());
+        assertTrue(offered.await(1, TimeUnit.SECONDS));
+        assertEquals(1, queue.poll(1, TimeUnit.SECONDS).getIndex());
+        assertEquals(0, queue.getDropped());
+        producer.join();
+    }
+
+    @Test
+    public void givesUpWaitingWhenPipelineStops() throws InterruptedException {
+        final FrameQueue queue = new FrameQueue(1, false);
+        queue.offer(frame(0), running);
+
+        running.set(false);
+        queue.offer(frame(1), running);
+
+        assertEquals(1, queue.size());
+        assertEquals(0, queue.poll(1, TimeUnit.SECONDS).getIndex());
+    }
+
+    private FrameContext frame(final long index) {
+        final FrameContext frame = new FrameContext(pool);
+        frame.setIndex(index);
+        return frame;
+    }
+}
@@ -0,0 +1,220 @@
+package com.mishagrodno.faceRecognizer.db.file;
+
+import com.mishagrodno.faceRecognizer.db.entity.ContentEncoding;
+import com.mishagrodno.faceRecognizer.db.entity.FaceEntity;
+import com.mishagrodno.faceRecognizer.db.entity.HumanEntity;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.rowset.serial.SerialBlob;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link GalleryFile}.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class GalleryFileTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+
+    private GalleryFile gallery;
+
+    @Before
+    public void setUp() throws IOException {
+        file = folder.newFile();
+        gallery = open();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        gallery.close();
+    }
+
+    @Test
+    public void recordsAreReplayed() throws IOException, SQLException {
+        final HumanEntity human = gallery.saveHuman(human("first"));
+        final FaceEntity face = face(human, new byte[]{1, 2, 3, 4});
+        gallery.saveFaces(Collections.singletonList(face));
+        final HumanEntity renamed = gallery.saveHuman(human("second"));
+        renamed.setName("third");
+        gallery.saveHuman(renamed);
+
+        reopen();
+
+        assertEquals(2, gallery.getHumans().size());
+        assertEquals("first", gallery.getHumans().get(human.getId()).getName());
+        assertEquals("third", gallery.getHumans().get(renamed.getId()).getName());
+
+        final FaceEntity replayed = gallery.getFaces().get(face.getId());
+        assertEquals(human.getId(), replayed.getOwner().getId());
+        assertEquals(ContentEncoding.RAW, replayed.getEncoding());
+        assertEquals(2, replayed.getWidth().intValue());
+        assertEquals(2, replayed.getHeight().intValue());
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, replayed.getContent().getBytes(1, 4));
+        assertEquals(gallery.version(face.getId()), gallery.version(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void deletesAreReplayed() throws IOException {
+        final HumanEntity kept = gallery.saveHuman(human("kept"));
+        final HumanEntity deleted = gallery.saveHuman(human("deleted"));
+        final FaceEntity first = face(kept, new byte[]{1, 2, 3, 4});
+        final FaceEntity second = face(kept, new byte[]{5, 6, 7, 8});
+        gallery.saveFaces(Arrays.asList(first, second));
+        gallery.deleteFaces(Collections.singletonList(first));
+        gallery.deleteHuman(deleted);
+
+        reopen();
+
+        assertEquals(Collections.singleton(kept.getId()), gallery.getHumans().keySet());
+        assertEquals(Collections.singleton(second.getId()), gallery.getFaces().keySet());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void humanWithFacesIsNotDeleted() {
+        final HumanEntity human = gallery.saveHuman(human("owner"));
+        gallery.saveFaces(Collections.singletonList(face(human, new byte[]{1, 2, 3, 4})));
+
+        gallery.deleteHuman(human);
+    }
+
+    @Test
+    public void truncatedLastRecordIsDropped() throws IOException, SQLException {
+        final HumanEntity human = gallery.saveHuman(human("owner"));
+        final FaceEntity kept = face(human, new byte[]{1, 2, 3, 4});
+        gallery.saveFaces(Collections.singletonList(kept));
+        final long complete = file.length();
+        gallery.saveFaces(Collections.singletonList(face(human, new byte[]{5, 6, 7, 8})));
+        gallery.close();
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(file.length() - 2);
+        }
+        gallery = open();
+
+        assertEquals(Collections.singleton(kept.getId()), gallery.getFaces().keySet());
+        assertEquals(complete, file.length());
+
+        // the next record is appended right after the last complete one.
+        final FaceEntity appended = face(human, new byte[]{9, 10, 11, 12});
+        gallery.saveFaces(Collections.singletonList(appended));
+        reopen();
+
+        assertArrayEquals(new byte[]{9, 10, 11, 12}, gallery.getFaces().get(appended.getId()).getContent().getBytes(1, 4));
+        assertTrue(appended.getId() > kept.getId());
+    }
+
+    @Test
+    public void zeroFilledTailIsDropped() throws IOException {
+        final HumanEntity human = gallery.saveHuman(human("owner"));
+        final long complete = file.length();
+        gallery.close();
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(complete + 4096);
+        }
+        gallery = open();
+
+        assertEquals(Collections.singleton(human.getId()), gallery.getHumans().keySet());
+        assertEquals(complete, file.length());
+    }
+
+    @Test
+    public void malformedLastRecordIsDropped() throws IOException {
+        final HumanEntity human = gallery.saveHuman(human("owner"));
+        final long complete = file.length();
+        gallery.saveHuman(human("broken"));
+        gallery.close();
+
+        // the name length of the last human is negative.
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(complete + 1 + Long.BYTES);
+            raf.writeInt(-1);
+        }
+        gallery = open();
+
+        assertEquals(Collections.singleton(human.getId()), gallery.getHumans().keySet());
+        assertEquals(complete, file.length());
+    }
+
+    @Test
+    public void faceWithUnknownEncodingIsDropped() throws IOException {
+        final HumanEntity human = gallery.saveHuman(human("owner"));
+        final long complete = file.length();
+        gallery.saveFaces(Collections.singletonList(face(human, new byte[]{1, 2, 3, 4})));
+        gallery.close();
+
+        // encoding follows the tag, the id, the owner id, the type, the width and the height.
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(complete + 1 + 2 * Long.BYTES + 3 * Integer.BYTES);
+            raf.writeInt(ContentEncoding.values().length);
+        }
+        gallery = open();
+
+        assertTrue(gallery.getFaces().isEmpty());
+        assertEquals(complete, file.length());
+    }
+
+    @Test
+    public void contentIsMapped() throws SQLException {
+        final HumanEntity human = gallery.saveHuman(human("owner"));
+        final FaceEntity face = face(human, new byte[]{1, 2, 3, 4});
+        gallery.saveFaces(Collections.singletonList(face));
+
+        final ByteBuffer buffer = ((MappedBlob) face.getContent()).getBuffer();
+        assertTrue(buffer.isDirect());
+        assertEquals(4, buffer.remaining());
+        assertEquals(3, buffer.get(2));
+    }
+
+    private GalleryFile open() throws IOException {
+        final GalleryFile opened = new GalleryFile();
+        ReflectionTestUtils.setField(opened, "file", file.getPath());
+        opened.open();
+        return opened;
+    }
+
+    private void reopen() throws IOException {
+        gallery.close();
+        gallery = open();
+    }
+
+    private static HumanEntity human(final String name) {
+        final HumanEntity human = new HumanEntity();
+        human.setName(name);
+        return human;
+    }
+
+    private static FaceEntity face(final HumanEntity owner, final byte[] content) {
+        try {
+            final FaceEntity face = new FaceEntity();
+            face.setOwner(owner);
+            face.setType(0);
+            face.setWidth(2);
+            face.setHeight(2);
+            face.setEncoding(ContentEncoding.RAW);
+            face.setContent(new SerialBlob(content));
+            return face;
+        } catch (final SQLException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
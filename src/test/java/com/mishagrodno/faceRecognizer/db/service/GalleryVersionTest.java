@@ -0,0 +1,41 @@
+package com.mishagrodno.faceRecognizer.db.service;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link GalleryVersion}.
+ *
+ * @author Gomanchuk Mikhail.
+ */
+public class GalleryVersionTest {
+
+    @Test
+    public void sameFacesGiveSameVersion() {
+        assertEquals(GalleryVersion.EMPTY.plus(1, 5).plus(2, 7), GalleryVersion.EMPTY.plus(1, 5).plus(2, 7));
+    }
+
+    @Test
+    public void swappedOwnersChangeVersion() {
+        assertNotEquals(GalleryVersion.EMPTY.plus(1, 5).plus(2, 7), GalleryVersion.EMPTY.plus(1, 7).plus(2, 5));
+    }
+
+    @Test
+    public void facesWithSameIdSumChangeVersion() {
+        final GalleryVersion before = GalleryVersion.EMPTY.plus(10, 3).plus(20, 3).plus(30, 4);
+        final GalleryVersion after = GalleryVersion.EMPTY.plus(12, 3).plus(18, 3).plus(30, 4);
+
+        assertEquals(before.getIdSum(), after.getIdSum());
+        assertNotEquals(before, after);
+    }
+
+    @Test
+    public void hashOfLargeIdsStaysInRange() {
+        final long hash = GalleryVersion.hash(Long.MAX_VALUE / GalleryVersion.ID_FACTOR / 2, Integer.MAX_VALUE);
+
+        assertTrue(hash >= 0 && hash < GalleryVersion.HASH_MODULUS);
+    }
+}